@@ -0,0 +1,167 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Remembers the results of NeedlemanWunsch.align() per (seq1, seq2,
+ * scoring), so asking for the same alignment again (the text and visual
+ * panes, a repeated click, the same pair sent to a server) does not fill
+ * the matrix again.
+ *
+ * The cache is bounded by memory rather than by entry count: every result
+ * is charged its estimated size (estimateBytes(), dominated by the DP
+ * matrix) and the least recently used results are evicted once the total
+ * is over maxBytes. A result larger than maxBytes on its own is returned
+ * but not kept. Keys are a 64-bit content hash of both sequences and the
+ * scoring; the sequences themselves are still compared on a hash match.
+ *
+ * All methods are thread-safe, and the lock is not held while aligning,
+ * so two threads missing on the same key both compute it. Cached
+ * AlignmentResults are shared, so callers must not modify their matrix.
+ */
+public class AlignmentCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes, hits, misses, evictions;
+
+    public AlignmentCache(long maxBytes) {
+        if (maxBytes < 1) throw new IllegalArgumentException("maxBytes must be positive, got " + maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    public NeedlemanWunsch.AlignmentResult align(String s1, String s2, ScoringModel scoring) {
+        return align(s1, s2, scoring, null);
+    }
+
+    /**
+     * The cached alignment of s1 and s2, or a new one from align(). The
+     * monitor (may be null) only sees a fill when there is one.
+     */
+    public NeedlemanWunsch.AlignmentResult align(String s1, String s2, ScoringModel scoring, FillMonitor monitor) {
+        Key key = new Key(s1, s2, scoring);
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached.result;
+            }
+            misses++;
+        }
+
+        NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2, scoring);
+        nw.setMonitor(monitor);
+        NeedlemanWunsch.AlignmentResult res = nw.align();
+        long size = estimateBytes(res) + stringBytes(s1.length()) + stringBytes(s2.length());    // plus the key
+
+        synchronized (this) {
+            if (size > maxBytes) return res;
+            Entry old = entries.put(key, new Entry(res, size));
+            if (old != null) bytes -= old.bytes;
+            bytes += size;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes) {
+                Entry e = eldest.next();
+                eldest.remove();
+                bytes -= e.bytes;
+                evictions++;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Rough heap footprint of a result: the matrix rows, the path
+     * coordinates, the cigar and the aligned strings, with 16 bytes of
+     * header per array and object on a 64-bit JVM with compressed oops.
+     */
+    public static long estimateBytes(NeedlemanWunsch.AlignmentResult res) {
+        long size = 32;
+        if (res.matrix != null) {
+            size += 16 + 4L * res.matrix.length;
+            for (int[] row : res.matrix) size += 16 + 4L * row.length;
+        }
+        if (res.tracebackPath != null) size += 48 + (4L + 24) * res.tracebackPath.size();
+        if (res.cigar != null) size += 16 + 4L * res.cigar.length;
+        size += stringBytes(res.alignedSeq1.length()) + stringBytes(res.alignedSeq2.length());
+        return size;
+    }
+
+    /** A String of `length` Latin-1 characters: the object plus its byte[]. */
+    private static long stringBytes(int length) {
+        return 24 + 16 + length;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Estimated bytes held, at most maxBytes. */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /** Drops every entry; the counters are kept. */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized String toString() {
+        return "AlignmentCache[" + entries.size() + " entries, " + bytes + "/" + maxBytes + " bytes, hits="
+                + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    private static final class Entry {
+        final NeedlemanWunsch.AlignmentResult result;
+        final long bytes;
+
+        Entry(NeedlemanWunsch.AlignmentResult result, long bytes) {
+            this.result = result;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Key {
+        private final String s1, s2;
+        private final ScoringModel scoring;
+        private final long hash;
+
+        Key(String s1, String s2, ScoringModel scoring) {
+            this.s1 = s1;
+            this.s2 = s2;
+            this.scoring = scoring;
+            // FNV-1a over both sequences, with the length of s1 separating them
+            long h = 0xcbf29ce484222325L;
+            for (int k = 0; k < s1.length(); k++) h = (h ^ s1.charAt(k)) * 0x100000001b3L;
+            h = (h ^ s1.length()) * 0x100000001b3L;
+            for (int k = 0; k < s2.length(); k++) h = (h ^ s2.charAt(k)) * 0x100000001b3L;
+            this.hash = h * 31 + scoring.hashCode();
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && s1.equals(k.s1) && s2.equals(k.s2) && scoring.equals(k.scoring);
+        }
+
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
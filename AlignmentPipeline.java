@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Aligns a stream of sequence pairs read from FASTA/FASTQ files.
+ *
+ * A reader thread pairs up records (record k of the first file with record
+ * k of the second, or consecutive records of a single file) and submits
+ * each pair to a fixed thread pool. The pending results go through a
+ * bounded queue that the caller drains in input order and writes out, so
+ * the reader blocks once `queueSize` pairs are in flight: memory stays
+ * constant however long the input is, and the output order matches the
+ * input.
+ *
+ * Each pair is aligned in linear space (alignLinearSpace(), for linear
+ * and affine models) unless only scores are asked for; the DP
+ * matrix and dot-plot text are optional since they grow with m * n.
+ */
+public class AlignmentPipeline {
+
+    private final ScoringModel scoring;
+    private final int threads;
+    private final int queueSize;
+    private boolean scoreOnly = false;
+    private boolean printMatrix = false;
+    private boolean printDotPlot = false;
+    private int seed = 0;
+
+    public AlignmentPipeline(ScoringModel scoring, int threads, int queueSize) {
+        if (threads < 1 || queueSize < 1)
+            throw new IllegalArgumentException("need threads >= 1 and queueSize >= 1, got " + threads + ", " + queueSize);
+        this.scoring = scoring;
+        this.threads = threads;
+        this.queueSize = queueSize;
+    }
+
+    /** Only report the score of every pair (O(n) memory, bit-parallel for the default scheme). */
+    public void setScoreOnly(boolean scoreOnly) {
+        this.scoreOnly = scoreOnly;
+    }
+
+    /** Also print the DP matrix of every pair (matrixToString() layout). */
+    public void setPrintMatrix(boolean printMatrix) {
+        this.printMatrix = printMatrix;
+    }
+
+    /** Also print the dot-plot of every pair (dotPlotToString() layout). */
+    public void setPrintDotPlot(boolean printDotPlot) {
+        this.printDotPlot = printDotPlot;
+    }
+
+    /**
+     * Align with SeedExtend using k-mer seeds of length `k` (0, the
+     * default, for a full alignment). Much faster for long, similar pairs,
+     * but only optimal through the anchors it finds.
+     */
+    public void setSeed(int k) {
+        if (k < 0) throw new IllegalArgumentException("seed length must be >= 0, got " + k);
+        this.seed = k;
+    }
+
+    /**
+     * Align every pair and write the reports to `out` in input order.
+     *
+     * @param second the second file, or null to pair consecutive records of `first`
+     * @return the number of pairs aligned
+     */
+    public long run(final FastxReader first, final FastxReader second, Writer out) throws IOException {
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(queueSize);
+        final Future<String> end = new FutureTask<>(new Callable<String>() {    // end-of-input marker
+            public String call() {
+                return null;
+            }
+        });
+
+        Thread reader = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (true) {
+                        FastxReader.Record a = first.next();
+                        FastxReader.Record b = (a == null) ? null : (second != null ? second.next() : first.next());
+                        if (a == null || b == null) {
+                            if (a != null || (second != null && second.next() != null))
+                                throw new IOException("unpaired record " + (a != null ? a.id : "in the second file"));
+                            break;
+                        }
+                        pending.put(pool.submit(new PairTask(a, b)));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // e.g. a malformed record, or a rejected submit: the consumer rethrows it
+                    putQuietly(pending, failed(e));
+                } catch (InterruptedException e) {
+                    // the consumer gave up
+                } finally {
+                    putQuietly(pending, end);
+                }
+            }
+        }, "fastx-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        long pairs = 0;
+        try {
+            while (true) {
+                Future<String> next = pending.take();
+                if (next == end) break;
+                Metrics.queueDepth("pipeline", pending.size());
+                out.write(next.get());
+                pairs++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        } finally {
+            reader.interrupt();
+            pool.shutdownNow();
+            try {
+                out.flush();    // keep the reports written before a failure
+            } catch (IOException e) {
+                // already failing, or the error shows on the next write
+            }
+        }
+        return pairs;
+    }
+
+    private static void putQuietly(BlockingQueue<Future<String>> queue, Future<String> f) {
+        try {
+            queue.put(f);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Future<String> failed(final Exception e) {
+        FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+            public String call() throws Exception {
+                throw e;
+            }
+        });
+        task.run();
+        return task;
+    }
+
+    /** Aligns one pair and renders its report. */
+    private class PairTask implements Callable<String> {
+        private final FastxReader.Record a, b;
+
+        PairTask(FastxReader.Record a, FastxReader.Record b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        public String call() throws IOException {
+            String s1 = a.sequence();
+            String s2 = b.sequence();
+            NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2, scoring);
+            StringWriter report = new StringWriter();
+            report.write(">" + a.id + " vs " + b.id + " (" + s1.length() + " x " + s2.length() + ")");
+
+            if (scoreOnly) {
+                report.write(" score=" + nw.scoreBitParallel() + "\n");
+            } else {
+                NeedlemanWunsch.AlignmentResult res;
+                if (seed > 0) res = nw.alignSeeded(seed, java.util.concurrent.ForkJoinPool.commonPool());
+                else res = nw.alignLinearSpace();
+                report.write(" score=" + res.score + "\n");
+                report.write(res.alignedSeq1);
+                report.write('\n');
+                report.write(res.alignedSeq2);
+                report.write('\n');
+            }
+            if (printDotPlot) {
+                report.write("\n===== DOT PLOT =====\n");
+                DotPlot dp = new DotPlot(s1, s2);
+                dp.writeDotPlot(dp.createBitDotPlot(), report);
+            }
+            if (printMatrix) {
+                report.write("\n===== NEEDLEMAN-WUNSCH MATRIX =====\n");
+                nw.writeMatrix(nw.createMatrix(), report);
+            }
+            report.write('\n');
+            return report.toString();
+        }
+    }
+}
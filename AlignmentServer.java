@@ -0,0 +1,346 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Long-running alignment service on localhost, so a pipeline pays for JVM
+ * startup and JIT warm-up once instead of once per pair.
+ *
+ *     POST /align[?mode=global|local|glocal|overlap][&scoreOnly=true]
+ *     POST /dotplot
+ *
+ * The body holds the two sequences, one per line (FASTA headers and blank
+ * lines are ignored). /align answers with
+ * "score=S start1=.. end1=.. start2=.. end2=.." and the two aligned lines,
+ * or just "score=S" when only the score is asked for. /dotplot answers
+ * with the DotPlot.writeDotPlot() text. GET /metrics serves Prometheus metrics
+ * when setMetrics() was called.
+ *
+ * Connections are served by a small fixed thread pool. Each one parses
+ * its request and puts it in a bounded queue; the response is sent from
+ * the same pool once the request is done, so no handler thread waits for
+ * a worker. When the queue is full the request is refused at once with
+ * 503 and Retry-After, so a burst cannot pile up unbounded work. Worker threads take whatever is queued, up to
+ * maxBatch requests, and run the batch with their own reused DP rows,
+ * so a busy server handles many small pairs per wake-up. Nothing waits
+ * for a batch to fill, so a lone request is not delayed. Before it
+ * accepts connections, start() runs a warm-up batch through the same
+ * code so the JIT has compiled the kernels.
+ */
+public class AlignmentServer {
+
+    /** Largest request body accepted (both sequences), in bytes. */
+    static final int MAX_BODY = 64 << 20;
+    /** Largest pair aligned by the O(n)-memory paths (global alignment, scores). */
+    static final long MAX_CELLS = 4_000_000_000L;
+    /** Largest pair for the modes that keep the full DP matrix (local, glocal, overlap). */
+    static final long MAX_MATRIX_CELLS = 1L << 25;
+    /** Largest dot-plot returned as text. */
+    static final long MAX_DOT_PLOT_CELLS = 4_000_000;
+    /** Handler threads on top of one per worker, for parsing and sending while all workers are busy. */
+    static final int EXTRA_HANDLERS = 4;
+
+    private final ScoringModel scoring;
+    private final int threads;
+    private final int maxBatch;
+    private final BlockingQueue<Request> queue;
+    private final AtomicLong accepted = new AtomicLong(), rejected = new AtomicLong();
+    private PrometheusMetrics metrics;
+
+    private HttpServer http;
+    private ExecutorService connections;
+    private final List<Thread> workers = new ArrayList<>();
+
+    public AlignmentServer(ScoringModel scoring, int threads, int queueSize, int maxBatch) {
+        if (threads < 1 || queueSize < 1 || maxBatch < 1)
+            throw new IllegalArgumentException("need threads, queueSize and maxBatch >= 1, got "
+                    + threads + ", " + queueSize + ", " + maxBatch);
+        this.scoring = scoring;
+        this.threads = threads;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    /** Serve `metrics` at /metrics (call before start()). */
+    public void setMetrics(PrometheusMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** Warm up, then listen on 127.0.0.1:port (0 picks a free port). */
+    public synchronized void start(int port) throws IOException {
+        if (http != null) throw new IllegalStateException("already started");
+        warmUp();
+
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 64);
+        http.createContext("/align", new Handler(false));
+        http.createContext("/dotplot", new Handler(true));
+        if (metrics != null) http.createContext("/metrics", metrics.handler());
+        // handlers never wait for a result, so a few threads keep up with the workers;
+        // overload shows up as a full `queue` and 503s, not as a backlog of exchanges here
+        connections = Executors.newFixedThreadPool(threads + EXTRA_HANDLERS);
+        http.setExecutor(connections);
+
+        for (int w = 0; w < threads; w++) {
+            Thread t = new Thread(new Worker(), "align-worker-" + w);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+        http.start();
+    }
+
+    public synchronized int port() {
+        return http.getAddress().getPort();
+    }
+
+    /** Stops accepting, fails the queued requests and ends the workers. */
+    public synchronized void stop() {
+        if (http == null) return;
+        http.stop(0);
+        connections.shutdownNow();
+        for (Thread t : workers) t.interrupt();
+        List<Request> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Request r : left) r.result.completeExceptionally(new IllegalStateException("server stopped"));
+        workers.clear();
+        http = null;
+    }
+
+    public long accepted() {
+        return accepted.get();
+    }
+
+    /** Requests refused with 503 because the queue was full. */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    /** One parsed request and the response text it completes with. */
+    private static final class Request {
+        final boolean dotPlot;
+        final String s1, s2;
+        final NeedlemanWunsch.Mode mode;
+        final boolean scoreOnly;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Request(boolean dotPlot, String s1, String s2, NeedlemanWunsch.Mode mode, boolean scoreOnly) {
+            this.dotPlot = dotPlot;
+            this.s1 = s1;
+            this.s2 = s2;
+            this.mode = mode;
+            this.scoreOnly = scoreOnly;
+        }
+
+        long cells() {
+            return (long) (s1.length() + 1) * (s2.length() + 1);
+        }
+
+        /** True when process() keeps the whole DP matrix; the others run in O(n) memory. */
+        boolean needsMatrix() {
+            return !dotPlot && mode != NeedlemanWunsch.Mode.GLOBAL;
+        }
+    }
+
+    /** Takes batches off the queue; owns the DP rows reused by its score-only requests. */
+    private class Worker implements Runnable {
+        private final List<Request> batch = new ArrayList<>(maxBatch);
+        private int[] row = new int[0], x = new int[0];
+
+        public void run() {
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatch - 1);
+                    Metrics.queueDepth("server", queue.size());
+                    runBatch();
+                }
+            } catch (InterruptedException e) {
+                // stopped
+            }
+        }
+
+        void runBatch() {
+            Metrics.Timer timer = Metrics.start("server", "batch");
+            long cells = 0;
+            for (Request r : batch) {
+                try {
+                    r.result.complete(process(r));
+                } catch (RuntimeException | Error e) {
+                    r.result.completeExceptionally(e);
+                }
+                cells += r.cells();
+            }
+            timer.stop(cells);
+            batch.clear();
+        }
+
+        String process(Request r) {
+            StringBuilder out = new StringBuilder();
+            if (r.dotPlot) {
+                DotPlot dp = new DotPlot(r.s1, r.s2);
+                try {
+                    dp.writeDotPlot(dp.createBitDotPlot(), out);
+                } catch (IOException e) {
+                    throw new java.io.UncheckedIOException(e);    // StringBuilder does not throw
+                }
+                return out.toString();
+            }
+
+            if (r.scoreOnly && r.mode == NeedlemanWunsch.Mode.GLOBAL) {
+                int score;
+                if (scoring.isDefaultScheme()) {
+                    score = new NeedlemanWunsch(r.s1, r.s2, scoring).scoreBitParallel();
+                } else {
+                    if (row.length <= r.s2.length()) {
+                        row = new int[r.s2.length() + 1];
+                        x = new int[r.s2.length() + 1];
+                    }
+                    byte[][] codes = scoring.encodeAll(r.s1, r.s2);
+                    score = NeedlemanWunsch.score(codes[0], codes[1], scoring, row, x);
+                }
+                return out.append("score=").append(score).append('\n').toString();
+            }
+
+            NeedlemanWunsch nw = new NeedlemanWunsch(r.s1, r.s2, scoring);
+            NeedlemanWunsch.AlignmentResult res = r.needsMatrix() ? nw.align(r.mode) : nw.alignLinearSpace();
+            out.append("score=").append(res.score);
+            if (r.scoreOnly) return out.append('\n').toString();
+            out.append(" start1=").append(res.start1).append(" end1=").append(res.end1)
+               .append(" start2=").append(res.start2).append(" end2=").append(res.end2).append('\n');
+            return out.append(res.alignedSeq1).append('\n').append(res.alignedSeq2).append('\n').toString();
+        }
+    }
+
+    /** Runs every kind of request a few hundred times so the JIT compiles them before the first client. */
+    private void warmUp() {
+        java.util.Random rnd = new java.util.Random(42);
+        Worker w = new Worker();
+        for (int k = 0; k < 200; k++) {
+            String s1 = randomDna(rnd, 200 + rnd.nextInt(200));
+            String s2 = s1.substring(rnd.nextInt(20)) + randomDna(rnd, rnd.nextInt(20));
+            w.batch.add(new Request(false, s1, s2, NeedlemanWunsch.Mode.values()[k % 4], false));
+            w.batch.add(new Request(false, s1, s2, NeedlemanWunsch.Mode.GLOBAL, true));
+            if (k % 10 == 0) w.batch.add(new Request(true, s1, s2, NeedlemanWunsch.Mode.GLOBAL, false));
+            w.runBatch();
+        }
+    }
+
+    private static String randomDna(java.util.Random rnd, int length) {
+        char[] c = new char[length];
+        for (int k = 0; k < length; k++) c[k] = "ACGT".charAt(rnd.nextInt(4));
+        return new String(c);
+    }
+
+    private class Handler implements HttpHandler {
+        private final boolean dotPlot;
+
+        Handler(boolean dotPlot) {
+            this.dotPlot = dotPlot;
+        }
+
+        public void handle(final HttpExchange exchange) throws IOException {
+            boolean answerLater = false;
+            try {
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    send(exchange, 405, "use POST with the two sequences in the body\n");
+                    return;
+                }
+                Request r;
+                try {
+                    r = parse(exchange);
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, e.getMessage() + "\n");
+                    return;
+                }
+                long limit = r.dotPlot ? MAX_DOT_PLOT_CELLS : (r.needsMatrix() ? MAX_MATRIX_CELLS : MAX_CELLS);
+                if (r.cells() > limit) {
+                    send(exchange, 413, "pair too large: " + r.cells() + " cells, at most " + limit + " for this request\n");
+                    return;
+                }
+                if (!queue.offer(r)) {
+                    rejected.incrementAndGet();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, 503, "queue full, retry later\n");
+                    return;
+                }
+                accepted.incrementAndGet();
+                r.result.whenCompleteAsync(new BiConsumer<String, Throwable>() {
+                    public void accept(String text, Throwable failure) {
+                        try {
+                            if (failure == null) send(exchange, 200, text);
+                            else send(exchange, 500, failure + "\n");
+                        } catch (IOException e) {
+                            // the client went away
+                        } finally {
+                            exchange.close();
+                        }
+                    }
+                }, connections);
+                answerLater = true;
+            } finally {
+                if (!answerLater) exchange.close();
+            }
+        }
+
+        private Request parse(HttpExchange exchange) throws IOException {
+            NeedlemanWunsch.Mode mode = NeedlemanWunsch.Mode.GLOBAL;
+            boolean scoreOnly = false;
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String param : query.split("&")) {
+                    int eq = param.indexOf('=');
+                    String key = eq < 0 ? param : param.substring(0, eq);
+                    String value = eq < 0 ? "" : param.substring(eq + 1);
+                    if (key.equals("mode")) mode = parseMode(value);
+                    else if (key.equals("scoreOnly")) scoreOnly = value.isEmpty() || value.equals("true");
+                    else if (!key.isEmpty()) throw new IllegalArgumentException("unknown parameter " + key);
+                }
+            }
+
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY + 1);
+            }
+            if (body.length > MAX_BODY) throw new IllegalArgumentException("body larger than " + MAX_BODY + " bytes");
+            List<String> seqs = new ArrayList<>(2);
+            for (String line : new String(body, StandardCharsets.ISO_8859_1).split("\n")) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(">")) continue;
+                seqs.add(line.toUpperCase());
+            }
+            if (seqs.size() != 2) throw new IllegalArgumentException("expected two sequences, one per line, got " + seqs.size());
+            return new Request(dotPlot, seqs.get(0), seqs.get(1), mode, scoreOnly);
+        }
+
+        private NeedlemanWunsch.Mode parseMode(String value) {
+            for (NeedlemanWunsch.Mode m : NeedlemanWunsch.Mode.values())
+                if (m.name().equalsIgnoreCase(value)) return m;
+            throw new IllegalArgumentException("unknown mode '" + value + "', expected global, local, glocal or overlap");
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+
+/**
+ * Custom-painted alignment for BioinfoGUI: the first aligned sequence, a
+ * relation row ('|' match, ':' mismatch, '-' gap) and the second aligned
+ * sequence, one column per alignment column.
+ *
+ * Only the columns inside the clip are painted, so a long alignment costs
+ * no more than a short one: there is no component per column.
+ */
+public class AlignmentView extends JComponent implements Scrollable {
+
+    private static final Color MATCH = new Color(72, 179, 92);
+    private static final Color MISMATCH = new Color(244, 156, 66);
+    private static final Color GAP = new Color(200, 200, 200);
+    private static final Color RELATION = new Color(245, 245, 245);
+
+    private static final int CELL = 24;                // residue cells are CELL x CELL
+    private static final int RELATION_HEIGHT = 18;
+    private static final int SPACING = 2;               // between cells, as in a GridLayout(3, n, 2, 2)
+    private static final int MARGIN = 6;
+
+    private final String a1, a2;
+
+    public AlignmentView(String alignedSeq1, String alignedSeq2) {
+        this.a1 = alignedSeq1;
+        this.a2 = alignedSeq2;
+        setFont(new Font(Font.SANS_SERIF, Font.BOLD, 12));
+        setOpaque(true);
+        setBackground(Color.white);
+        setToolTipText("");
+    }
+
+    /** Colour of column k: gap, match or mismatch. */
+    private Color colour(int k) {
+        char c1 = a1.charAt(k), c2 = a2.charAt(k);
+        return (c1 == '-' || c2 == '-') ? GAP : (c1 == c2) ? MATCH : MISMATCH;
+    }
+
+    private char relation(int k) {
+        Color c = colour(k);
+        return c == GAP ? '-' : c == MATCH ? '|' : ':';
+    }
+
+    /** Top of row 0 (first sequence), 1 (relation) and 2 (second sequence). */
+    private static int rowY(int row) {
+        return MARGIN + row * (CELL + SPACING) - (row == 2 ? CELL - RELATION_HEIGHT : 0);
+    }
+
+    private static int rowHeight(int row) {
+        return row == 1 ? RELATION_HEIGHT : CELL;
+    }
+
+    public Dimension getPreferredSize() {
+        return new Dimension(2 * MARGIN + a1.length() * (CELL + SPACING) - SPACING, rowY(2) + CELL + MARGIN);
+    }
+
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(getSize());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (a1.isEmpty()) return;
+
+        int k0 = Math.max(0, (clip.x - MARGIN) / (CELL + SPACING));
+        int k1 = Math.min(a1.length() - 1, (clip.x + clip.width - MARGIN) / (CELL + SPACING));
+        FontMetrics fm = g.getFontMetrics();
+
+        for (int k = k0; k <= k1; k++) {
+            int x = MARGIN + k * (CELL + SPACING);
+            for (int row = 0; row < 3; row++) {
+                int y = rowY(row), h = rowHeight(row);
+                String text;
+                if (row == 1) {
+                    g.setColor(RELATION);
+                    g.fillRect(x, y, CELL, h);
+                    g.setColor(Color.lightGray);
+                    g.drawRect(x, y, CELL - 1, h - 1);
+                    g.setColor(Color.black);
+                    text = String.valueOf(relation(k));
+                } else {
+                    g.setColor(colour(k));
+                    g.fillRect(x, y, CELL, h);
+                    g.setColor(Color.gray);
+                    g.drawRect(x, y, CELL - 1, h - 1);
+                    g.setColor(Color.white);
+                    text = String.valueOf((row == 0 ? a1 : a2).charAt(k));
+                }
+                g.drawString(text, x + (CELL - fm.stringWidth(text)) / 2, y + (h + fm.getAscent()) / 2 - 2);
+            }
+        }
+    }
+
+    public String getToolTipText(MouseEvent e) {
+        int k = (e.getX() - MARGIN) / (CELL + SPACING);
+        if (e.getX() < MARGIN || k >= a1.length()) return null;
+        for (int row = 0; row < 3; row++) {
+            if (e.getY() < rowY(row) || e.getY() >= rowY(row) + rowHeight(row)) continue;
+            if (row == 0) return "Top: " + a1.charAt(k) + " at col " + (k + 1);
+            if (row == 2) return "Bottom: " + a2.charAt(k) + " at col " + (k + 1);
+            char r = relation(k);
+            return "Relation: " + (r == '|' ? "match" : r == ':' ? "mismatch" : "gap");
+        }
+        return null;
+    }
+
+    // Scrollable: scroll by whole columns
+
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? CELL : CELL + SPACING;
+    }
+
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+    }
+
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-vs-all alignment of N query sequences against M target sequences.
+ *
+ * The N x M pairs are split recursively on a ForkJoinPool, so idle worker
+ * threads steal the remaining halves from busy ones. Every sequence is
+ * encoded once up front, and in score-only mode the DP rows are reused:
+ * a task takes a pair of rows from the run's spare list, or allocates one,
+ * and hands it back when done, so a run allocates about one pair of rows
+ * per thread and drops them all when it returns.
+ *
+ * Results are handed to a Listener as soon as each pair is done instead of
+ * being collected, so memory does not grow with the size of the grid.
+ * The listener is called from the worker threads and must be thread-safe.
+ *
+ * With Metrics enabled a run reports its time and cells as the "batch"
+ * job, and the pairs still to align as the "batch" queue depth.
+ */
+public class BatchAligner {
+
+    /** Receives one call per (query, target) pair, in completion order. */
+    public interface Listener {
+        /**
+         * @param alignment the full alignment, or null in score-only mode
+         */
+        void onResult(int query, int target, int score, NeedlemanWunsch.AlignmentResult alignment);
+    }
+
+    /** Number of pairs a task processes itself instead of splitting further. */
+    private static final int GRAIN = 4;
+
+    private final ScoringModel scoring;
+    private final ForkJoinPool pool;
+    private boolean fullAlignment = false;
+
+    public BatchAligner(ScoringModel scoring, ForkJoinPool pool) {
+        this.scoring = scoring;
+        this.pool = pool;
+    }
+
+    /**
+     * When set, every pair is fully aligned (NeedlemanWunsch.align()) and
+     * the listener receives the AlignmentResult; by default only scores
+     * are computed.
+     */
+    public void setFullAlignment(boolean fullAlignment) {
+        this.fullAlignment = fullAlignment;
+    }
+
+    /**
+     * Align every query against every target and return once all pairs
+     * have been reported.
+     */
+    public void alignAll(List<String> queries, List<String> targets, Listener listener) {
+        if (queries.isEmpty() || targets.isEmpty()) return;
+
+        String[] all = new String[queries.size() + targets.size()];
+        for (int k = 0; k < queries.size(); k++) all[k] = queries.get(k);
+        for (int k = 0; k < targets.size(); k++) all[queries.size() + k] = targets.get(k);
+        byte[][] codes = scoring.encodeAll(all);
+        byte[][] q = java.util.Arrays.copyOfRange(codes, 0, queries.size());
+        byte[][] t = java.util.Arrays.copyOfRange(codes, queries.size(), all.length);
+        int maxTarget = 0;
+        for (byte[] target : t) maxTarget = Math.max(maxTarget, target.length);
+
+        long pairs = (long) q.length * t.length;
+        Metrics.Timer timer = Metrics.start("batch", "alignAll");
+        Job job = new Job(queries, targets, q, t, listener, maxTarget + 1, pairs);
+        Metrics.queueDepth("batch", (int) Math.min(pairs, Integer.MAX_VALUE));
+        pool.invoke(new PairTask(job, 0, pairs));
+        long rows = 0, cols = 0;
+        for (byte[] query : q) rows += query.length + 1;
+        for (byte[] target : t) cols += target.length + 1;
+        timer.stop(rows * cols);
+    }
+
+    /** Everything the tasks of one alignAll() call share. */
+    private class Job {
+        final List<String> queries, targets;
+        final byte[][] q, t;
+        final Listener listener;
+        final int rowLength;
+        final java.util.concurrent.ConcurrentLinkedQueue<int[][]> spareRows =
+                new java.util.concurrent.ConcurrentLinkedQueue<>();    // DP rows no task is using
+        final java.util.concurrent.atomic.AtomicLong waiting;    // pairs not aligned yet, for Metrics
+
+        Job(List<String> queries, List<String> targets, byte[][] q, byte[][] t,
+            Listener listener, int rowLength, long pairs) {
+            this.queries = queries;
+            this.targets = targets;
+            this.q = q;
+            this.t = t;
+            this.listener = listener;
+            this.rowLength = rowLength;
+            this.waiting = new java.util.concurrent.atomic.AtomicLong(pairs);
+        }
+
+        /** Rows for score-only pairs, to be given back with releaseRows(); null for full alignments. */
+        int[][] takeRows() {
+            if (fullAlignment) return null;
+            int[][] rows = spareRows.poll();
+            return (rows != null) ? rows : new int[][]{new int[rowLength], new int[rowLength]};
+        }
+
+        void releaseRows(int[][] rows) {
+            if (rows != null) spareRows.offer(rows);
+        }
+
+        void run(int qi, int ti, int[][] rows) {
+            if (fullAlignment) {
+                NeedlemanWunsch.AlignmentResult res =
+                        new NeedlemanWunsch(queries.get(qi), targets.get(ti), scoring).align();
+                listener.onResult(qi, ti, res.score, res);
+            } else {
+                int score = NeedlemanWunsch.score(q[qi], t[ti], scoring, rows[0], rows[1]);
+                listener.onResult(qi, ti, score, null);
+            }
+        }
+    }
+
+    /**
+     * Handles the pairs with flat index in [from, to), pair k being
+     * query k / M against target k % M.
+     */
+    private static class PairTask extends RecursiveAction {
+        private final Job job;
+        private final long from, to;
+
+        PairTask(Job job, long from, long to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from <= GRAIN) {
+                int targets = job.t.length;
+                int[][] rows = job.takeRows();
+                try {
+                    for (long k = from; k < to; k++) job.run((int) (k / targets), (int) (k % targets), rows);
+                } finally {
+                    job.releaseRows(rows);
+                }
+                long waiting = job.waiting.addAndGet(from - to);
+                if (Metrics.enabled()) Metrics.queueDepth("batch", (int) Math.min(waiting, Integer.MAX_VALUE));
+                return;
+            }
+            long mid = (from + to) >>> 1;
+            invokeAll(new PairTask(job, from, mid), new PairTask(job, mid, to));
+        }
+    }
+}
@@ -2,6 +2,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Simple, clean Swing GUI to run Dot-plot and Needleman–Wunsch on two sequences.
@@ -12,6 +14,10 @@ public class BioinfoGUI extends JFrame {
     private final JTextArea seq1Field;
     private final JTextArea seq2Field;
     private final JTextArea outputArea;
+    private final JButton dotBtn, alignBtn, cancelBtn;
+    private final JProgressBar progressBar;
+    private Job<?> currentJob = null;
+    private final AlignmentCache alignments = new AlignmentCache(Runtime.getRuntime().maxMemory() / 4);
 
     public BioinfoGUI() {
         setTitle("Dot-plot & Needleman–Wunsch — Visual Learner");
@@ -37,13 +43,20 @@ public class BioinfoGUI extends JFrame {
         left.add(inputs, BorderLayout.CENTER);
 
         // buttons panel
-        JPanel controls = new JPanel(new GridLayout(3, 1, 6, 6));
-        JButton dotBtn = new JButton("Generate Dot-plot");
-        JButton alignBtn = new JButton("Compute Alignment");
+        JPanel controls = new JPanel(new GridLayout(5, 1, 6, 6));
+        dotBtn = new JButton("Generate Dot-plot");
+        alignBtn = new JButton("Compute Alignment");
         JButton clearBtn = new JButton("Clear Output");
+        cancelBtn = new JButton("Cancel");
+        cancelBtn.setEnabled(false);
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Idle");
         controls.add(dotBtn);
         controls.add(alignBtn);
         controls.add(clearBtn);
+        controls.add(progressBar);
+        controls.add(cancelBtn);
 
         left.add(controls, BorderLayout.SOUTH);
 
@@ -98,18 +111,22 @@ public class BioinfoGUI extends JFrame {
         add(footer, BorderLayout.SOUTH);
 
         // actions
+        // the work itself runs on a background thread (see Job)
         dotBtn.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 generateDotPlot();
-                // also populate visual dotPlot
-                displayVisualDotPlot();
             }
         });
 
         alignBtn.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 computeAlignment();
-                displayVisualAlignment();
+            }
+        });
+
+        cancelBtn.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                if (currentJob != null) currentJob.cancel(true);
             }
         });
 
@@ -147,18 +164,39 @@ public class BioinfoGUI extends JFrame {
             return;
         }
 
-        DotPlot dp = new DotPlot(s1, s2);
-        char[][] grid = dp.createDotPlot();
-        String out = "===== DOT PLOT =====\n" + dp.dotPlotToString(grid);
-        outputArea.append(out + "\n");
-        // store last grid for visual use
-        lastDotGrid = grid;
-        lastSeq1 = s1;
-        lastSeq2 = s2;
+        final String seq1 = s1, seq2 = s2;
+        start(new Job<BitDotPlot>("Dot-plot") {
+            private String text;
+
+            protected BitDotPlot doInBackground() {
+                DotPlot dp = new DotPlot(seq1, seq2);
+                dp.setMonitor(this);
+                BitDotPlot plot = dp.createBitDotPlot();
+                if ((long) seq1.length() * seq2.length() <= TEXT_CELL_LIMIT) {
+                    text = "===== DOT PLOT =====\n" + dp.dotPlotToString(plot.toCharGrid()) + "\n";
+                } else {
+                    text = "===== DOT PLOT =====\n" + seq1.length() + " x " + seq2.length() + ", "
+                            + plot.count() + " matches (too large for text, see the Visual tab)\n\n";
+                }
+                return plot;
+            }
+
+            protected void finished(BitDotPlot plot) {
+                outputArea.append(text);
+                // store last plot for visual use
+                lastDotPlot = plot;
+                lastSeq1 = seq1;
+                lastSeq2 = seq2;
+                displayVisualDotPlot();
+            }
+        });
     }
 
+    /** Largest dot-plot or DP matrix (in cells) also written to the text tab. */
+    private static final long TEXT_CELL_LIMIT = 250_000;
+
     // stored values for visual rendering
-    private char[][] lastDotGrid = null;
+    private BitDotPlot lastDotPlot = null;
     private String lastSeq1 = null;
     private String lastSeq2 = null;
 
@@ -166,7 +204,7 @@ public class BioinfoGUI extends JFrame {
     private JPanel currentAlignPanel = null;
 
     private void displayVisualDotPlot() {
-        if (lastDotGrid == null) return;
+        if (lastDotPlot == null) return;
 
         // get the visual split pane / dotPlotContainer nested earlier
         Container root = getContentPane();
@@ -184,47 +222,32 @@ public class BioinfoGUI extends JFrame {
 
         if (currentDotPanel != null) dotPlotContainer.remove(currentDotPanel);
 
-        JPanel grid = new JPanel();
-        int r = lastDotGrid.length;
-        int c = lastDotGrid[0].length;
-        grid.setLayout(new GridLayout(r + 1, c + 1, 1, 1));
-        grid.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
-
-        grid.add(new JLabel(" "));
-        for (int j = 0; j < c; j++) {
-            JLabel h = new JLabel(String.valueOf(lastSeq2.charAt(j)), SwingConstants.CENTER);
-            h.setOpaque(true);
-            h.setBackground(new Color(240, 240, 240));
-            grid.add(h);
-        }
-
-        for (int i = 0; i < r; i++) {
-            JLabel rowH = new JLabel(String.valueOf(lastSeq1.charAt(i)), SwingConstants.CENTER);
-            rowH.setOpaque(true);
-            rowH.setBackground(new Color(240, 240, 240));
-            grid.add(rowH);
-
-            for (int j = 0; j < c; j++) {
-                JLabel cell = new JLabel("", SwingConstants.CENTER);
-                cell.setOpaque(true);
-                cell.setBorder(BorderFactory.createLineBorder(new Color(230,230,230)));
-                if (lastDotGrid[i][j] == '*') {
-                    cell.setBackground(new Color(72, 179, 92)); // green
-                    cell.setText("*");
-                    cell.setForeground(Color.white);
-                } else {
-                    cell.setBackground(new Color(250, 250, 250));
-                }
-                grid.add(cell);
-            }
-        }
+        // custom-painted, tiled view: only the visible part is drawn
+        final DotPlotView view = new DotPlotView(lastDotPlot, lastSeq1, lastSeq2);
 
         currentDotPanel = new JPanel(new BorderLayout());
-        currentDotPanel.add(new JScrollPane(grid), BorderLayout.CENTER);
+        currentDotPanel.add(view.createScrollPane(), BorderLayout.CENTER);
 
         JPanel legend = new JPanel(new FlowLayout(FlowLayout.LEFT));
         legend.add(createLegendDot("Match", new Color(72,179,92)));
         legend.add(createLegendDot("No match", new Color(240,240,240)));
+
+        JButton zoomIn = new JButton("+");
+        JButton zoomOut = new JButton("-");
+        zoomIn.setToolTipText("Zoom in (or Ctrl + mouse wheel)");
+        zoomOut.setToolTipText("Zoom out (or Ctrl + mouse wheel)");
+        zoomIn.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                view.zoomIn();
+            }
+        });
+        zoomOut.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                view.zoomOut();
+            }
+        });
+        legend.add(zoomOut);
+        legend.add(zoomIn);
         currentDotPanel.add(legend, BorderLayout.SOUTH);
 
         dotPlotContainer.add(currentDotPanel, BorderLayout.CENTER);
@@ -252,32 +275,158 @@ public class BioinfoGUI extends JFrame {
             return;
         }
 
-        NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2);
-        int[][] matrix = nw.createMatrix();
+        final String seq1 = s1, seq2 = s2;
+        start(new Job<NeedlemanWunsch.AlignmentResult>("Alignment") {
+            private volatile MappedMatrix temp;    // closed unless finished() gets to show it
+
+            protected NeedlemanWunsch.AlignmentResult doInBackground() throws java.io.IOException {
+                try {
+                    return alignAndReport();
+                } finally {
+                    if (isCancelled()) discarded();    // done() may have run before temp was set
+                }
+            }
+
+            private NeedlemanWunsch.AlignmentResult alignAndReport() throws java.io.IOException {
+                // one fill gives both the matrix and the traceback; repeats come from the cache
+                NeedlemanWunsch.AlignmentResult res;
+                if (4L * (seq1.length() + 1) * (seq2.length() + 1) <= alignments.maxBytes()) {
+                    res = alignments.align(seq1, seq2, ScoringModel.DEFAULT, this);
+                } else {
+                    // larger than the cache may hold: fill a temporary file instead of the heap
+                    temp = MappedMatrix.create(seq1.length() + 1, seq2.length() + 1, null);
+                    NeedlemanWunsch nw = new NeedlemanWunsch(seq1, seq2);
+                    nw.setMonitor(this);
+                    res = nw.align(NeedlemanWunsch.Mode.GLOBAL, temp);
+                }
+                ScoreMatrix matrix = res.scores;
+
+                StringBuilder out = new StringBuilder();
+                out.append("===== NEEDLEMAN–WUNSCH DP MATRIX =====\n");
+                if ((long) matrix.rows() * matrix.cols() <= TEXT_CELL_LIMIT)
+                    out.append(new NeedlemanWunsch(seq1, seq2).matrixToString(res.matrix));
+                else out.append(matrix.rows() + " x " + matrix.cols() + " (too large for text, see the Visual tab)\n");
+                out.append("\n===== ALIGNMENT =====\n");
+                out.append("Score: " + res.score + "\n\n");
+                out.append(res.alignedSeq1 + "\n");
+                out.append(res.alignedSeq2 + "\n\n");
+                publish(out.toString());
+                return res;
+            }
+
+            protected void finished(NeedlemanWunsch.AlignmentResult res) {
+                // store last alignment pieces for visual
+                NeedlemanWunsch.AlignmentResult previous = lastAlignment;
+                lastAlignment = res;
+                lastSeq1 = seq1;
+                lastSeq2 = seq2;
+
+                // also show DP matrix visually in the top area (matrix with highlighted traceback)
+                displayVisualMatrix(res);
+                displayVisualAlignment();
+
+                // the old view is gone, so its temporary matrix file can go too
+                if (previous != null && previous.scores instanceof MappedMatrix && previous.scores != res.scores) {
+                    try {
+                        ((MappedMatrix) previous.scores).close();
+                    } catch (java.io.IOException e) {
+                        // only a temporary file
+                    }
+                }
+            }
+
+            protected void discarded() {
+                MappedMatrix scores = temp;
+                if (scores == null) return;
+                try {
+                    scores.close();
+                } catch (java.io.IOException e) {
+                    // only a temporary file
+                }
+            }
+        });
+    }
+
+    /**
+     * Background task for one button press. The fills call back into it as
+     * their FillMonitor, which moves the progress bar and lets Cancel stop
+     * them; text passed to publish() is appended to the output as soon as
+     * it is ready. finished() runs on the EDT with the result.
+     */
+    private abstract class Job<T> extends SwingWorker<T, String> implements FillMonitor {
+        private final String title;
+
+        Job(String title) {
+            this.title = title;
+        }
+
+        public void rowsDone(int done, int total) {
+            int percent = (int) (100L * done / Math.max(1, total));
+            if (percent != getProgress()) setProgress(percent);
+        }
 
-        StringBuilder out = new StringBuilder();
-        out.append("===== NEEDLEMAN–WUNSCH DP MATRIX =====\n");
-        out.append(nw.matrixToString(matrix));
+        protected void process(java.util.List<String> chunks) {
+            if (isCancelled()) return;
+            for (String text : chunks) outputArea.append(text);
+        }
 
-        NeedlemanWunsch.AlignmentResult res = nw.align();
-        out.append("\n===== ALIGNMENT =====\n");
-        out.append("Score: " + res.score + "\n\n");
-        out.append(res.alignedSeq1 + "\n");
-        out.append(res.alignedSeq2 + "\n\n");
+        protected abstract void finished(T result);
 
-        outputArea.append(out.toString());
+        /**
+         * Runs instead of finished() when the job was cancelled or failed,
+         * including after doInBackground() had already returned, to release
+         * what it allocated. May run more than once.
+         */
+        protected void discarded() {
+        }
 
-        // store last alignment pieces for visual
-        lastAlignment = res;
-        lastSeq1 = s1;
-        lastSeq2 = s2;
+        protected void done() {
+            if (currentJob == this) {
+                currentJob = null;
+                dotBtn.setEnabled(true);
+                alignBtn.setEnabled(true);
+                cancelBtn.setEnabled(false);
+            }
+            try {
+                T result = get();
+                progressBar.setValue(100);
+                progressBar.setString(title + " done");
+                finished(result);
+            } catch (CancellationException e) {
+                discarded();
+                progressBar.setString(title + " cancelled");
+                outputArea.append(title + " cancelled.\n\n");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                discarded();
+                progressBar.setString(title + " failed");
+                JOptionPane.showMessageDialog(BioinfoGUI.this, String.valueOf(e.getCause().getMessage()),
+                        title + " failed", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
 
-        // also show DP matrix visually in the top area (matrix with highlighted traceback)
-        displayVisualMatrix(res);
+    private void start(final Job<?> job) {
+        currentJob = job;
+        dotBtn.setEnabled(false);
+        alignBtn.setEnabled(false);
+        cancelBtn.setEnabled(true);
+        progressBar.setValue(0);
+        progressBar.setString(job.title + "...");
+        job.addPropertyChangeListener(new java.beans.PropertyChangeListener() {
+            public void propertyChange(java.beans.PropertyChangeEvent e) {
+                if ("progress".equals(e.getPropertyName()) && currentJob == job) {
+                    progressBar.setValue(job.getProgress());
+                    progressBar.setString(job.title + " " + job.getProgress() + "%");
+                }
+            }
+        });
+        job.execute();
     }
 
     private void displayVisualMatrix(NeedlemanWunsch.AlignmentResult res) {
-        if (res == null || res.matrix == null) return;
+        if (res == null || res.scores == null) return;
 
         Container root = getContentPane();
         JTabbedPane tp = null;
@@ -293,77 +442,11 @@ public class BioinfoGUI extends JFrame {
         // remove existing (dot plot or previous matrix)
         if (currentDotPanel != null) dotPlotContainer.remove(currentDotPanel);
 
-        int[][] matrix = res.matrix;
-        int rows = matrix.length;
-        int cols = matrix[0].length;
-
-        // build a grid with row header + matrix
-        JPanel grid = new JPanel(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.fill = GridBagConstraints.BOTH;
-
-        // top-left empty
-        gbc.gridx = 0; gbc.gridy = 0; gbc.weightx = 0; gbc.weighty = 0;
-        grid.add(new JLabel(""), gbc);
-
-        // top header (seq2, include '-' for j=0)
-        for (int j = 0; j < cols; j++) {
-            gbc.gridx = j + 1; gbc.gridy = 0; gbc.weightx = 1; gbc.weighty = 0;
-            JLabel h;
-            if (j == 0) h = new JLabel("-", SwingConstants.CENTER);
-            else h = new JLabel(String.valueOf(lastSeq2.charAt(j - 1)), SwingConstants.CENTER);
-            h.setBorder(BorderFactory.createLineBorder(Color.lightGray));
-            h.setOpaque(true);
-            h.setBackground(new Color(240,240,240));
-            grid.add(h, gbc);
-        }
-
-        // matrix cells with left header
-        java.util.Set<String> pathSet = new java.util.HashSet<>();
-        if (res.tracebackPath != null) {
-            for (int[] coord : res.tracebackPath) pathSet.add(coord[0] + "," + coord[1]);
-        }
-
-        for (int i = 0; i < rows; i++) {
-            // left header
-            gbc.gridx = 0; gbc.gridy = i + 1; gbc.weightx = 0;
-            JLabel leftH;
-            if (i == 0) leftH = new JLabel("-", SwingConstants.CENTER);
-            else leftH = new JLabel(String.valueOf(lastSeq1.charAt(i - 1)), SwingConstants.CENTER);
-            leftH.setBorder(BorderFactory.createLineBorder(Color.lightGray));
-            leftH.setOpaque(true);
-            leftH.setBackground(new Color(240,240,240));
-            grid.add(leftH, gbc);
-
-            for (int j = 0; j < cols; j++) {
-                gbc.gridx = j + 1; gbc.gridy = i + 1; gbc.weightx = 1; gbc.weighty = 1;
-                int value = matrix[i][j];
-                JLabel cell = new JLabel(String.valueOf(value), SwingConstants.CENTER);
-                cell.setOpaque(true);
-
-                // color mapping (simple): positive -> greenish; zero -> white; negative -> light red
-                if (pathSet.contains(i + "," + j)) {
-                    // highlight path specially
-                    cell.setBackground(new Color(255, 229, 153)); // pale yellow
-                    cell.setBorder(BorderFactory.createLineBorder(new Color(255,140,0), 2));
-                } else if (value > 0) {
-                    cell.setBackground(new Color(200, 255, 200));
-                } else if (value == 0) {
-                    cell.setBackground(new Color(245, 245, 245));
-                } else {
-                    cell.setBackground(new Color(255,220,220));
-                }
-                cell.setBorder(BorderFactory.createLineBorder(new Color(220,220,220)));
-                cell.setFont(cell.getFont().deriveFont(Font.PLAIN, 12f));
-
-                // tooltip with coordinates
-                cell.setToolTipText(String.format("(%d,%d) = %d", i, j, value));
-                grid.add(cell, gbc);
-            }
-        }
+        // custom-painted view: cells are drawn straight from res.scores, visible ones only
+        MatrixView view = new MatrixView(res, lastSeq1, lastSeq2);
 
         currentDotPanel = new JPanel(new BorderLayout());
-        currentDotPanel.add(new JScrollPane(grid), BorderLayout.CENTER);
+        currentDotPanel.add(view.createScrollPane(), BorderLayout.CENTER);
 
         // legend
         JPanel legend = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -398,106 +481,25 @@ public class BioinfoGUI extends JFrame {
 
         if (currentAlignPanel != null) alignCenter.remove(currentAlignPanel);
 
-        String a1 = lastAlignment.alignedSeq1;
-        String a2 = lastAlignment.alignedSeq2;
-
-        // Build a clean 3-row grid (top sequence, symbol row, bottom sequence) so each aligned column
-        // is a consistent cell. This looks like the dot-plot visual but in alignment form.
-        int cols = a1.length();
-        JPanel grid = new JPanel(new GridLayout(3, cols, 2, 2));
-        grid.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
-
-        // Build the three rows as arrays then add them row-by-row so columns align
-        JLabel[] topLabels = new JLabel[cols];
-        JLabel[] midLabels = new JLabel[cols];
-        JLabel[] botLabels = new JLabel[cols];
-
-        for (int k = 0; k < cols; k++) {
-            char c1 = a1.charAt(k);
-            char c2 = a2.charAt(k);
-
-            String midSymbol;
-            if (c1 == '-' || c2 == '-') {
-                midSymbol = "-";
-            } else if (c1 == c2) {
-                midSymbol = "|";
-            } else {
-                midSymbol = ":";
-            }
-
-            JLabel topLabel = new JLabel(String.valueOf(c1), SwingConstants.CENTER);
-            topLabel.setToolTipText("Top: " + c1 + " at col " + (k + 1));
-
-            JLabel midLabel = new JLabel(midSymbol, SwingConstants.CENTER);
-            midLabel.setToolTipText("Relation: " + (midSymbol.equals("|")?"match": midSymbol.equals(":")?"mismatch":"gap"));
-
-            JLabel botLabel = new JLabel(String.valueOf(c2), SwingConstants.CENTER);
-            botLabel.setToolTipText("Bottom: " + c2 + " at col " + (k + 1));
-
-            topLabels[k] = topLabel;
-            midLabels[k] = midLabel;
-            botLabels[k] = botLabel;
-        }
-
-        // add top row cells
-        for (int k = 0; k < cols; k++) {
-            Color bg;
-            char c1 = a1.charAt(k);
-            char c2 = a2.charAt(k);
-            if (c1 == '-' || c2 == '-') bg = new Color(200,200,200);
-            else if (c1 == c2) bg = new Color(72,179,92);
-            else bg = new Color(244,156,66);
-            styleAlignmentCell(topLabels[k], bg);
-            grid.add(topLabels[k]);
-        }
-
-        // add middle row
-        for (int k = 0; k < cols; k++) {
-            JLabel mid = midLabels[k];
-            mid.setOpaque(true);
-            mid.setBackground(new Color(245,245,245));
-            mid.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
-            mid.setPreferredSize(new Dimension(20, 18));
-            grid.add(mid);
-        }
-
-        // add bottom row
-        for (int k = 0; k < cols; k++) {
-            Color bg;
-            char c1 = a1.charAt(k);
-            char c2 = a2.charAt(k);
-            if (c1 == '-' || c2 == '-') bg = new Color(200,200,200);
-            else if (c1 == c2) bg = new Color(72,179,92);
-            else bg = new Color(244,156,66);
-            styleAlignmentCell(botLabels[k], bg);
-            grid.add(botLabels[k]);
-        }
-
-        JPanel p = new JPanel(new BorderLayout());
-        p.add(grid, BorderLayout.CENTER);
+        // top sequence, relation row and bottom sequence, painted for the visible columns only
+        AlignmentView view = new AlignmentView(lastAlignment.alignedSeq1, lastAlignment.alignedSeq2);
 
         // score display
         JLabel scoreLab = new JLabel("Score: " + lastAlignment.score);
         scoreLab.setBorder(BorderFactory.createEmptyBorder(6,6,6,6));
-        p.add(scoreLab);
+
+        JPanel p = new JPanel(new BorderLayout());
+        p.add(new JScrollPane(view), BorderLayout.CENTER);
+        p.add(scoreLab, BorderLayout.SOUTH);
 
         currentAlignPanel = new JPanel(new BorderLayout());
-        currentAlignPanel.add(new JScrollPane(p), BorderLayout.CENTER);
+        currentAlignPanel.add(p, BorderLayout.CENTER);
 
         alignCenter.add(currentAlignPanel, BorderLayout.CENTER);
         alignCenter.revalidate();
         alignCenter.repaint();
     }
 
-    private void styleAlignmentCell(JLabel lbl, Color bg) {
-        lbl.setOpaque(true);
-        lbl.setBackground(bg);
-        lbl.setForeground(Color.white);
-        lbl.setBorder(BorderFactory.createLineBorder(Color.gray));
-        lbl.setPreferredSize(new Dimension(24, 24));
-        lbl.setFont(lbl.getFont().deriveFont(Font.BOLD, 12f));
-    }
-
     public static void createAndShow() {
         BioinfoGUI gui = new BioinfoGUI();
         gui.setVisible(true);
@@ -0,0 +1,62 @@
+/**
+ * Dot-plot stored as one bit per cell: row i is a long[] whose bit j is set
+ * when seq1[i] matches seq2[j]. That is 16x smaller than the char[][] grid
+ * of DotPlot.createDotPlot().
+ *
+ * Rows are read-only and may be shared: the raw plot built by
+ * DotPlot.createBitDotPlot() uses the same row array for every occurrence
+ * of a residue.
+ */
+public class BitDotPlot {
+
+    private final int rows, cols;
+    private final long[][] bits;
+
+    public BitDotPlot(int rows, int cols, long[][] bits) {
+        this.rows = rows;
+        this.cols = cols;
+        this.bits = bits;
+    }
+
+    /** Number of long words per row. */
+    public static int words(int cols) {
+        return (cols + 63) >>> 6;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public boolean get(int i, int j) {
+        return (bits[i][j >>> 6] & (1L << j)) != 0;
+    }
+
+    /** The words of row i (do not modify). */
+    public long[] row(int i) {
+        return bits[i];
+    }
+
+    /** Number of marked cells. */
+    public long count() {
+        long total = 0;
+        for (long[] r : bits) for (long w : r) total += Long.bitCount(w);
+        return total;
+    }
+
+    /**
+     * The plot as the usual '*' / ' ' grid, for DotPlot's printers and the GUI.
+     */
+    public char[][] toCharGrid() {
+        char[][] grid = new char[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            long[] r = bits[i];
+            char[] out = grid[i];
+            for (int j = 0; j < cols; j++) out[j] = ((r[j >>> 6] >>> j) & 1L) != 0 ? '*' : ' ';
+        }
+        return grid;
+    }
+}
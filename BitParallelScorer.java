@@ -0,0 +1,125 @@
+/**
+ * Bit-parallel global alignment score for the default scoring
+ * (match +1, mismatch -1, gap -1), 64 DP columns per machine word.
+ *
+ * This is in the spirit of Myers' and Hyyrö's bit-vector edit distance, but
+ * the default scores are not unit-cost edit distance, so the recurrence is
+ * derived for them directly:
+ *
+ *   With K[i][j] = H[i][j] + i + j the NW recurrence becomes
+ *     K[i][j] = max(K[i-1][j-1] + w, K[i-1][j], K[i][j-1])
+ *   where w = 3 for a match and 1 for a mismatch, and row/column 0 are 0.
+ *
+ *   The horizontal differences d[j] = K[i][j] - K[i][j-1] and vertical
+ *   differences x[j] = K[i][j] - K[i-1][j] both lie in 0..3, and
+ *     x[j] = max(x[j-1] - d[j], b[j])   with   b[j] = max(w, d[j]) - d[j].
+ *
+ * So a row is a small scan over 2-bit values: each level x >= t spreads to
+ * the right through columns with d = 0 and drops one level per unit of d.
+ * The spreading is done with one addition per word (the carry chain does
+ * the propagation) and the rest with plain AND/OR/XOR on bit-planes.
+ *
+ * Sequences longer than 64 use long[] blocks, with the carries handed from
+ * one block to the next.
+ */
+public class BitParallelScorer {
+
+    private BitParallelScorer() {
+    }
+
+    /**
+     * Global score of s1 against s2 under match +1, mismatch -1, gap -1.
+     * Equal to new NeedlemanWunsch(s1, s2).createMatrix()[m][n].
+     */
+    public static int score(String s1, String s2) {
+        int m = s1.length();
+        int n = s2.length();
+        int words = (n + 63) >>> 6;
+
+        // match masks of s2 for every residue that occurs in s1
+        long[][] rowMask = new long[m][];
+        java.util.Map<Character, long[]> peq = new java.util.HashMap<>();
+        long[] none = new long[words];
+        for (int j = 0; j < n; j++) {
+            char c = s2.charAt(j);
+            long[] mask = peq.get(c);
+            if (mask == null) {
+                mask = new long[words];
+                peq.put(c, mask);
+            }
+            mask[j >>> 6] |= 1L << j;
+        }
+        for (int i = 0; i < m; i++) {
+            long[] mask = peq.get(s1.charAt(i));
+            rowMask[i] = (mask != null) ? mask : none;
+        }
+
+        // horizontal differences of the current row as two bit-planes (low, high)
+        long[] d0 = new long[words];
+        long[] d1 = new long[words];
+
+        for (int i = 0; i < m; i++) {
+            long[] eq = rowMask[i];
+            long reach1 = 0, reach2 = 0, reach3 = 0;   // carries of the spreading
+            long top1 = 0, top2 = 0, top3 = 0;         // x[j-1] levels of the previous word
+
+            for (int w = 0; w < words; w++) {
+                long lo = d0[w], hi = d1[w];
+                long ge1 = lo | hi, ge2 = hi, ge3 = lo & hi;
+                long zero = ~ge1;
+                long one = lo & ~hi;
+                long two = hi & ~lo;
+                long e = eq[w];
+
+                // levels of b[j]
+                long b1 = (e & ~ge3) | zero;
+                long b2 = e & ~ge2;
+                long b3 = e & zero;
+
+                long x3 = spread(b3, zero, reach3);
+                long p3 = (x3 << 1) | top3;
+                long x2 = spread(b2 | (p3 & one), zero, reach2);
+                long p2 = (x2 << 1) | top2;
+                long x1 = spread(b1 | (p2 & one) | (p3 & two), zero, reach1);
+                long p1 = (x1 << 1) | top1;
+
+                reach3 = x3 >>> 63; top3 = reach3;
+                reach2 = x2 >>> 63; top2 = reach2;
+                reach1 = x1 >>> 63; top1 = reach1;
+
+                // new d = d + x[j] - x[j-1], bit-sliced (the result always fits in 0..3)
+                long xLo = (x1 & ~x2) | x3, xHi = x2;
+                long pLo = (p1 & ~p2) | p3, pHi = p2;
+
+                long y0 = lo ^ xLo;
+                long c0 = lo & xLo;
+                long y1 = hi ^ xHi ^ c0;
+
+                long z0 = y0 ^ pLo;
+                long borrow = ~y0 & pLo;
+                long z1 = y1 ^ pHi ^ borrow;
+
+                d0[w] = z0;
+                d1[w] = z1;
+            }
+        }
+
+        long k = 0;
+        for (int w = 0; w < words; w++) {
+            long valid = (w == words - 1 && (n & 63) != 0) ? (1L << (n & 63)) - 1 : -1L;
+            k += Long.bitCount(d0[w] & valid) + 2L * Long.bitCount(d1[w] & valid);
+        }
+        return (int) (k - m - n);
+    }
+
+    /**
+     * Bits reachable from a source bit by moving towards higher positions
+     * through bits of pass: r[j] = src[j] | (pass[j] & r[j-1]), with carryIn
+     * as r[-1]. The addition's carry chain does exactly this propagation.
+     */
+    private static long spread(long src, long pass, long carryIn) {
+        long a = src | pass;
+        long carries = (a + src + carryIn) ^ a ^ src;
+        return src | (pass & carries);
+    }
+}
@@ -1,36 +1,184 @@
 public class DotPlot {
 
     private String seq1, seq2;
+    private FillMonitor monitor;    // optional, see setMonitor()
 
     public DotPlot(String s1, String s2) {
         this.seq1 = s1;
         this.seq2 = s2;
     }
 
+    /**
+     * Report the progress of createDotPlot() and createBitDotPlot() (rows
+     * of the plot done) to `monitor`, which can also cancel them. null
+     * removes it.
+     */
+    public void setMonitor(FillMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    private void rowDone(int done, int total) {
+        if (monitor == null) return;
+        if (monitor.isCancelled()) throw new java.util.concurrent.CancellationException("dot-plot cancelled");
+        monitor.rowsDone(done, total);
+    }
+
     public char[][] createDotPlot() {
         int rows = seq1.length();
         int cols = seq2.length();
+        Metrics.Timer timer = Metrics.start("dotPlot", "fill");
         char[][] grid = new char[rows][cols];
 
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
                 grid[i][j] = (seq1.charAt(i) == seq2.charAt(j)) ? '*' : ' ';
             }
+            rowDone(i + 1, rows);
         }
+        timer.stop((long) rows * cols);
         return grid;
     }
 
-    public void printDotPlot(char[][] grid) {
-        System.out.print("      ");
-        for (int j = 0; j < seq2.length(); j++)
-            System.out.printf("%2c", seq2.charAt(j));
-        System.out.println();
+    /**
+     * Bit-packed version of createDotPlot(). A match mask over seq2 is built
+     * once per residue (64 columns per long), and each row of the plot is
+     * simply the mask of seq1's residue at that row, so no cell is compared
+     * one by one. Use toCharGrid() on the result for the printers.
+     */
+    public BitDotPlot createBitDotPlot() {
+        int rows = seq1.length();
+        int cols = seq2.length();
+        int words = BitDotPlot.words(cols);
+        Metrics.Timer timer = Metrics.start("bitDotPlot", "fill");
 
-        for (int i = 0; i < seq1.length(); i++) {
-            System.out.printf("%2c | ", seq1.charAt(i));
-            for (int j = 0; j < seq2.length(); j++)
-                System.out.printf("%2c", grid[i][j]);
-            System.out.println();
+        java.util.Map<Character, long[]> masks = new java.util.HashMap<>();
+        for (int j = 0; j < cols; j++) {
+            long[] mask = masks.get(seq2.charAt(j));
+            if (mask == null) {
+                mask = new long[words];
+                masks.put(seq2.charAt(j), mask);
+            }
+            mask[j >>> 6] |= 1L << j;
+        }
+
+        long[] none = new long[words];
+        long[][] bits = new long[rows][];
+        for (int i = 0; i < rows; i++) {
+            long[] mask = masks.get(seq1.charAt(i));
+            bits[i] = (mask != null) ? mask : none;
+            rowDone(i + 1, rows);
+        }
+        timer.stop((long) rows * cols);
+        return new BitDotPlot(rows, cols, bits);
+    }
+
+    /**
+     * Window/stringency filtered dot-plot: cell (i, j) is marked only when at
+     * least `stringency` of the `window` residue pairs on its diagonal,
+     * centred on the cell, match. Cells whose window would run off the
+     * plot are left empty. window = stringency = 1 gives the raw plot.
+     *
+     * Each diagonal is scanned once with a sliding match count, so the cost
+     * is O(m*n) whatever the window size. The rows are split in bands that
+     * are filtered in parallel on the common ForkJoinPool.
+     */
+    public BitDotPlot createFilteredDotPlot(int window, int stringency) {
+        return createFilteredDotPlot(window, stringency, java.util.concurrent.ForkJoinPool.commonPool());
+    }
+
+    public BitDotPlot createFilteredDotPlot(int window, int stringency, java.util.concurrent.ForkJoinPool pool) {
+        if (window < 1 || stringency < 1 || stringency > window)
+            throw new IllegalArgumentException("need 1 <= stringency <= window, got window=" + window
+                    + ", stringency=" + stringency);
+
+        int rows = seq1.length();
+        int cols = seq2.length();
+        long[][] bits = new long[rows][BitDotPlot.words(cols)];
+
+        // bands are tall compared to the window so re-priming the count at
+        // every band start stays a small fraction of the work
+        int band = Math.max(64, 16 * window);
+        int bands = (rows + band - 1) / band;
+        if (bands > 0)
+            pool.invoke(new FilterTask(seq1.toCharArray(), seq2.toCharArray(), bits,
+                    window, stringency, band, 0, bands));
+        return new BitDotPlot(rows, cols, bits);
+    }
+
+    /**
+     * Filters the row bands [from, to); every band only writes its own rows.
+     */
+    private static class FilterTask extends java.util.concurrent.RecursiveAction {
+        private final char[] s, t;
+        private final long[][] bits;
+        private final int window, stringency, band, from, to;
+
+        FilterTask(char[] s, char[] t, long[][] bits, int window, int stringency, int band, int from, int to) {
+            this.s = s;
+            this.t = t;
+            this.bits = bits;
+            this.window = window;
+            this.stringency = stringency;
+            this.band = band;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from == 1) {
+                filterBand(from * band, Math.min(s.length, (from + 1) * band));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FilterTask(s, t, bits, window, stringency, band, from, mid),
+                      new FilterTask(s, t, bits, window, stringency, band, mid, to));
+        }
+
+        private void filterBand(int r0, int r1) {
+            int m = s.length, n = t.length;
+            int half = (window - 1) / 2;    // window of (i, j) starts at (i - half, j - half)
+
+            for (int o = -(r1 - 1); o <= n - 1 - r0; o++) {       // diagonal j = i + o
+                int iLo = Math.max(r0, half + Math.max(0, -o));
+                int iHi = Math.min(r1 - 1, Math.min(m, n - o) - window + half);
+                if (iLo > iHi) continue;
+
+                int count = 0;
+                for (int k = iLo - half; k < iLo - half + window; k++)
+                    if (s[k] == t[k + o]) count++;
+
+                for (int i = iLo; ; i++) {
+                    if (count >= stringency) {
+                        int j = i + o;
+                        bits[i][j >>> 6] |= 1L << j;
+                    }
+                    if (i == iHi) break;
+                    int out = i - half, in = out + window;
+                    if (s[out] == t[out + o]) count--;
+                    if (s[in] == t[in + o]) count++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sparse k-mer dot-plot for long sequences: seq2 is indexed by k-mer
+     * (KmerIndex) and seq1's k-mers are looked up in it, so time and memory
+     * grow with the number of hits instead of m*n. Each hit (i, j), packed
+     * as (i << 32) | j and sorted, marks a k-mer shared by seq1 at i and
+     * seq2 at j; decode with KmerIndex.hitRow()/hitCol().
+     */
+    public long[] createSparseDotPlot(int k) {
+        return new KmerIndex(seq2, k).hits(seq1);
+    }
+
+    public void printDotPlot(char[][] grid) {
+        java.io.Writer out = new java.io.OutputStreamWriter(System.out);
+        try {
+            writeDotPlot(grid, out, System.lineSeparator());
+            out.flush();
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
         }
     }
 
@@ -39,17 +187,55 @@ public class DotPlot {
      */
     public String dotPlotToString(char[][] grid) {
         StringBuilder sb = new StringBuilder();
-        sb.append("      ");
-        for (int j = 0; j < seq2.length(); j++)
-            sb.append(String.format("%2c", seq2.charAt(j)));
-        sb.append('\n');
+        try {
+            writeDotPlot(grid, sb, "\n");
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);    // StringBuilder does not throw
+        }
+        return sb.toString();
+    }
 
+    /**
+     * Stream the dotPlotToString() layout to `out` (a Writer, StringBuilder,
+     * ...) without building it in memory first.
+     */
+    public void writeDotPlot(char[][] grid, Appendable out) throws java.io.IOException {
+        writeDotPlot(grid, out, "\n");
+    }
+
+    /**
+     * Same layout straight from a BitDotPlot, without expanding it to a
+     * char grid first: '*' for a match, ' ' otherwise.
+     */
+    public void writeDotPlot(BitDotPlot plot, Appendable out) throws java.io.IOException {
+        TextBuffer tb = writeHeader(out, "\n");
         for (int i = 0; i < seq1.length(); i++) {
-            sb.append(String.format("%2c | ", seq1.charAt(i)));
+            tb.pad(seq1.charAt(i), 2).append(" | ");
+            long[] row = plot.row(i);
             for (int j = 0; j < seq2.length(); j++)
-                sb.append(String.format("%2c", grid[i][j]));
-            sb.append('\n');
+                tb.append(' ').append((row[j >>> 6] & (1L << j)) != 0 ? '*' : ' ');
+            tb.append('\n');
         }
-        return sb.toString();
+        tb.flush();
+    }
+
+    private void writeDotPlot(char[][] grid, Appendable out, String nl) throws java.io.IOException {
+        TextBuffer tb = writeHeader(out, nl);
+        for (int i = 0; i < seq1.length(); i++) {
+            tb.pad(seq1.charAt(i), 2).append(" | ");
+            for (int j = 0; j < seq2.length(); j++)
+                tb.pad(grid[i][j], 2);
+            tb.append(nl);
+        }
+        tb.flush();
+    }
+
+    private TextBuffer writeHeader(Appendable out, String nl) throws java.io.IOException {
+        TextBuffer tb = new TextBuffer(out);
+        tb.append("      ");
+        for (int j = 0; j < seq2.length(); j++)
+            tb.pad(seq2.charAt(j), 2);
+        tb.append(nl);
+        return tb;
     }
 }
@@ -0,0 +1,313 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Custom-painted dot-plot for BioinfoGUI that stays fast on large plots.
+ *
+ * The plot is drawn into 256x256 pixel tiles (BufferedImages) that are
+ * cached per zoom level, and only the tiles inside the visible part of the
+ * scroll pane are painted. Zoom goes by powers of two: above one pixel per
+ * cell every cell is a coloured block; below it each pixel stands for a
+ * square bin of cells and is shaded by the fraction of matches in the bin.
+ *
+ * Ctrl + mouse wheel zooms around the cursor, dragging pans.
+ */
+public class DotPlotView extends JComponent implements Scrollable {
+
+    private static final int TILE = 256;
+    private static final int MAX_TILES = 256;
+    private static final int MIN_ZOOM = -12, MAX_ZOOM = 5;    // 2^zoom pixels per cell
+
+    private static final Color MATCH = new Color(72, 179, 92);
+    private static final Color EMPTY = new Color(250, 250, 250);
+    private static final Color GRID = new Color(230, 230, 230);
+
+    private final BitDotPlot plot;
+    private final String seq1, seq2;
+    private int zoom;
+
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(64, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+
+    public DotPlotView(BitDotPlot plot, String seq1, String seq2) {
+        this.plot = plot;
+        this.seq1 = seq1;
+        this.seq2 = seq2;
+        this.zoom = fitZoom(Math.max(plot.rows(), plot.cols()), 600);
+        setOpaque(true);
+        setBackground(Color.white);
+        setToolTipText("");
+
+        MouseAdapter mouse = new MouseAdapter() {
+            private Point dragStart;
+
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+            }
+
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart == null) return;
+                Rectangle view = getVisibleRect();
+                view.translate(dragStart.x - e.getX(), dragStart.y - e.getY());
+                scrollRectToVisible(view);
+            }
+
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (e.isControlDown()) {
+                    setZoom(zoom - e.getWheelRotation(), e.getPoint());
+                } else {
+                    getParent().dispatchEvent(SwingUtilities.convertMouseEvent(DotPlotView.this, e, getParent()));
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Scroll pane around this view with seq2 along the top and seq1 down
+     * the side; the letters show once cells are large enough to hold them.
+     */
+    public JScrollPane createScrollPane() {
+        JScrollPane scroll = new JScrollPane(this);
+        scroll.setColumnHeaderView(new Ruler(true));
+        scroll.setRowHeaderView(new Ruler(false));
+        return scroll;
+    }
+
+    /** Sequence letters along one edge of the plot, painted for the visible range only. */
+    private class Ruler extends JComponent {
+        private final boolean horizontal;
+
+        Ruler(boolean horizontal) {
+            this.horizontal = horizontal;
+            setOpaque(true);
+            setBackground(new Color(240, 240, 240));
+        }
+
+        public Dimension getPreferredSize() {
+            Dimension plotSize = DotPlotView.this.getPreferredSize();
+            return horizontal ? new Dimension(plotSize.width, 18) : new Dimension(18, plotSize.height);
+        }
+
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            if (zoom < 3) return;
+
+            int size = 1 << zoom;
+            String seq = horizontal ? seq2 : seq1;
+            int from = (horizontal ? clip.x : clip.y) >> zoom;
+            int to = Math.min(seq.length() - 1, ((horizontal ? clip.x + clip.width : clip.y + clip.height) >> zoom));
+            g.setColor(Color.darkGray);
+            FontMetrics fm = g.getFontMetrics();
+            for (int k = from; k <= to; k++) {
+                String letter = String.valueOf(seq.charAt(k));
+                int offset = (size - fm.stringWidth(letter)) / 2;
+                if (horizontal) g.drawString(letter, (k << zoom) + offset, 14);
+                else g.drawString(letter, 5, (k << zoom) + (size + fm.getAscent()) / 2 - 1);
+            }
+        }
+    }
+
+    /** Largest zoom (up to 16 px per cell) at which `cells` fit in `pixels`. */
+    private static int fitZoom(int cells, int pixels) {
+        int z = 4;
+        while (z > MIN_ZOOM && pixelsFor(cells, z) > pixels) z--;
+        return z;
+    }
+
+    private static int pixelsFor(int cells, int zoom) {
+        return zoom >= 0 ? cells << zoom : (cells + (1 << -zoom) - 1) >> -zoom;
+    }
+
+    public void zoomIn() {
+        setZoom(zoom + 1, null);
+    }
+
+    public void zoomOut() {
+        setZoom(zoom - 1, null);
+    }
+
+    /**
+     * Change the zoom, keeping the plot cell under `anchor` (or the centre
+     * of the view) in place.
+     */
+    private void setZoom(int newZoom, Point anchor) {
+        newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, newZoom));
+        if (newZoom == zoom) return;
+
+        Rectangle view = getVisibleRect();
+        if (anchor == null) anchor = new Point(view.x + view.width / 2, view.y + view.height / 2);
+        double factor = Math.pow(2, newZoom - zoom);
+
+        zoom = newZoom;
+        revalidate();
+        if (getParent() instanceof JViewport) {
+            JViewport port = (JViewport) getParent();
+            if (port.getParent() instanceof JScrollPane) {
+                JScrollPane scroll = (JScrollPane) port.getParent();
+                if (scroll.getColumnHeader() != null) scroll.getColumnHeader().getView().revalidate();
+                if (scroll.getRowHeader() != null) scroll.getRowHeader().getView().revalidate();
+            }
+            port.setViewSize(getPreferredSize());
+            int x = (int) (anchor.x * factor) - (anchor.x - view.x);
+            int y = (int) (anchor.y * factor) - (anchor.y - view.y);
+            port.setViewPosition(new Point(Math.max(0, x), Math.max(0, y)));
+        }
+        repaint();
+    }
+
+    public Dimension getPreferredSize() {
+        return new Dimension(pixelsFor(plot.cols(), zoom), pixelsFor(plot.rows(), zoom));
+    }
+
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(getSize());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int width = pixelsFor(plot.cols(), zoom);
+        int height = pixelsFor(plot.rows(), zoom);
+        int tx0 = clip.x / TILE, tx1 = Math.min(clip.x + clip.width, width - 1) / TILE;
+        int ty0 = clip.y / TILE, ty1 = Math.min(clip.y + clip.height, height - 1) / TILE;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                g.drawImage(tile(tx, ty), tx * TILE, ty * TILE, null);
+            }
+        }
+    }
+
+    private BufferedImage tile(int tx, int ty) {
+        long key = ((long) (zoom - MIN_ZOOM) << 56) | ((long) ty << 28) | tx;
+        BufferedImage img = tiles.get(key);
+        if (img == null) {
+            img = renderTile(tx, ty);
+            tiles.put(key, img);
+        }
+        return img;
+    }
+
+    private BufferedImage renderTile(int tx, int ty) {
+        BufferedImage img = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = new int[TILE * TILE];
+        int empty = EMPTY.getRGB();
+        int background = getBackground().getRGB();
+
+        if (zoom >= 0) {
+            int size = 1 << zoom;
+            boolean grid = size >= 8;
+            for (int py = 0; py < TILE; py++) {
+                int y = ty * TILE + py;
+                int i = y >> zoom;
+                for (int px = 0; px < TILE; px++) {
+                    int x = tx * TILE + px;
+                    int j = x >> zoom;
+                    int rgb;
+                    if (i >= plot.rows() || j >= plot.cols()) rgb = background;
+                    else if (grid && ((x & (size - 1)) == 0 || (y & (size - 1)) == 0)) rgb = GRID.getRGB();
+                    else rgb = plot.get(i, j) ? MATCH.getRGB() : empty;
+                    pixels[py * TILE + px] = rgb;
+                }
+            }
+        } else {
+            int bin = 1 << -zoom;
+            for (int py = 0; py < TILE; py++) {
+                int i0 = (ty * TILE + py) * bin;
+                for (int px = 0; px < TILE; px++) {
+                    int j0 = (tx * TILE + px) * bin;
+                    if (i0 >= plot.rows() || j0 >= plot.cols()) {
+                        pixels[py * TILE + px] = background;
+                        continue;
+                    }
+                    int i1 = Math.min(plot.rows(), i0 + bin);
+                    int j1 = Math.min(plot.cols(), j0 + bin);
+                    long hits = countHits(i0, i1, j0, j1);
+                    double density = hits / ((double) (i1 - i0) * (j1 - j0));
+                    pixels[py * TILE + px] = shade(density);
+                }
+            }
+        }
+        img.setRGB(0, 0, TILE, TILE, pixels, 0, TILE);
+        return img;
+    }
+
+    /** Marked cells in rows [i0, i1) and columns [j0, j1), a word at a time. */
+    private long countHits(int i0, int i1, int j0, int j1) {
+        int w0 = j0 >>> 6, w1 = (j1 - 1) >>> 6;
+        long first = -1L << (j0 & 63);
+        long last = -1L >>> (63 - ((j1 - 1) & 63));
+        long total = 0;
+        for (int i = i0; i < i1; i++) {
+            long[] row = plot.row(i);
+            if (w0 == w1) {
+                total += Long.bitCount(row[w0] & first & last);
+            } else {
+                total += Long.bitCount(row[w0] & first);
+                for (int w = w0 + 1; w < w1; w++) total += Long.bitCount(row[w]);
+                total += Long.bitCount(row[w1] & last);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Colour of a bin. Random DNA already matches a quarter of the time,
+     * so the scale is stretched to make diagonals stand out.
+     */
+    private static int shade(double density) {
+        double t = Math.min(1.0, Math.sqrt(density));
+        int r = (int) (EMPTY.getRed() + t * (MATCH.getRed() - EMPTY.getRed()));
+        int g = (int) (EMPTY.getGreen() + t * (MATCH.getGreen() - EMPTY.getGreen()));
+        int b = (int) (EMPTY.getBlue() + t * (MATCH.getBlue() - EMPTY.getBlue()));
+        return (r << 16) | (g << 8) | b;
+    }
+
+    public String getToolTipText(MouseEvent e) {
+        if (zoom >= 0) {
+            int i = e.getY() >> zoom, j = e.getX() >> zoom;
+            if (i >= plot.rows() || j >= plot.cols()) return null;
+            return String.format("(%d,%d) %c / %c%s", i + 1, j + 1, seq1.charAt(i), seq2.charAt(j),
+                    plot.get(i, j) ? " match" : "");
+        }
+        int bin = 1 << -zoom;
+        int i0 = e.getY() * bin, j0 = e.getX() * bin;
+        if (i0 >= plot.rows() || j0 >= plot.cols()) return null;
+        int i1 = Math.min(plot.rows(), i0 + bin), j1 = Math.min(plot.cols(), j0 + bin);
+        return String.format("rows %d-%d, cols %d-%d: %d matches", i0 + 1, i1, j0 + 1, j1, countHits(i0, i1, j0, j1));
+    }
+
+    // Scrollable: scroll by one tile, keep the natural size
+
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return Math.max(1, Math.min(TILE / 8, 1 << Math.max(0, zoom)));
+    }
+
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+    }
+
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming FASTA / FASTQ parser. Records are read one at a time from a
+ * channel through a fixed 64 KB buffer, so a file of any size is parsed in
+ * constant memory (plus the current record).
+ *
+ * The format is taken from the first record ('>' FASTA, '@' FASTQ) and
+ * gzip input is recognised by its magic bytes, whatever the file name.
+ * Sequence lines are joined, whitespace is dropped and letters are
+ * upper-cased (soft-masked residues count as normal ones); FASTQ quality
+ * lines are skipped.
+ */
+public class FastxReader implements Closeable {
+
+    /** One sequence: the header up to the first blank and the residues as ASCII bytes. */
+    public static final class Record {
+        public final String id;
+        public final byte[] residues;
+
+        public Record(String id, byte[] residues) {
+            this.id = id;
+            this.residues = residues;
+        }
+
+        public int length() {
+            return residues.length;
+        }
+
+        /** The residues as a String (one byte per char, as Latin-1 Strings are stored). */
+        public String sequence() {
+            return new String(residues, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static final int BUFFER = 1 << 16;
+
+    private final String name;
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+    private boolean eof = false;
+    private int format = 0;            // '>' or '@' once known
+    private long line = 1;             // for error messages
+
+    private byte[] seq = new byte[1024];
+    private int seqLength;
+    private final StringBuilder header = new StringBuilder();
+
+    public FastxReader(String name, ReadableByteChannel channel) {
+        this.name = name;
+        this.channel = channel;
+        buf.limit(0);
+    }
+
+    /** Open a file, or standard input for "-"; gzip is detected from the content. */
+    public static FastxReader open(String path) throws IOException {
+        if (path.equals("-")) {
+            java.io.PushbackInputStream in = new java.io.PushbackInputStream(System.in, 2);
+            int b0 = in.read();
+            int b1 = in.read();
+            if (b1 >= 0) in.unread(b1);
+            if (b0 >= 0) in.unread(b0);
+            InputStream source = isGzip(b0, b1) ? new GZIPInputStream(in, BUFFER) : in;
+            return new FastxReader("stdin", Channels.newChannel(source));
+        }
+
+        FileChannel file = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+        ByteBuffer magic = ByteBuffer.allocate(2);
+        while (magic.hasRemaining() && file.read(magic, magic.position()) > 0) { }
+        if (magic.position() == 2 && isGzip(magic.get(0) & 0xff, magic.get(1) & 0xff))
+            return new FastxReader(path, Channels.newChannel(new GZIPInputStream(Channels.newInputStream(file), BUFFER)));
+        return new FastxReader(path, file);
+    }
+
+    private static boolean isGzip(int b0, int b1) {
+        return b0 == 0x1f && b1 == 0x8b;
+    }
+
+    /** The next record, or null at the end of the input. */
+    public Record next() throws IOException {
+        int c = skipWhitespace();
+        if (c < 0) return null;
+        if (format == 0) {
+            if (c != '>' && c != '@')
+                throw new IOException(name + ":" + line + ": expected '>' (FASTA) or '@' (FASTQ), found '" + (char) c + "'");
+            format = c;
+        }
+        if (c != format)
+            throw new IOException(name + ":" + line + ": expected '" + (char) format + "' to start a record");
+
+        // header: the id is everything after the marker up to the first blank
+        read();
+        header.setLength(0);
+        boolean inId = true;
+        while ((c = read()) >= 0 && c != '\n') {
+            if (c == ' ' || c == '\t') inId = false;
+            if (inId && c != '\r') header.append((char) c);
+        }
+        line++;
+
+        seqLength = 0;
+        if (format == '>') {
+            while ((c = peek()) >= 0 && c != '>') readSequenceLine();
+        } else {
+            while ((c = peek()) >= 0 && c != '+') readSequenceLine();
+            if (c < 0) throw new IOException(name + ":" + line + ": FASTQ record '" + header + "' has no '+' line");
+            while ((c = read()) >= 0 && c != '\n') { }    // '+' line
+            line++;
+            skipQuality(seqLength);
+        }
+        return new Record(header.toString(), java.util.Arrays.copyOf(seq, seqLength));
+    }
+
+    private void readSequenceLine() throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != '\n') {
+            if (c <= ' ') continue;
+            if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+            if (seqLength == seq.length) seq = java.util.Arrays.copyOf(seq, seq.length * 2);
+            seq[seqLength++] = (byte) c;
+        }
+        line++;
+    }
+
+    /** Skip `count` quality characters, which may span lines and start with '@'. */
+    private void skipQuality(int count) throws IOException {
+        int seen = 0;
+        int c;
+        while (seen < count && (c = read()) >= 0) {
+            if (c == '\n') line++;
+            else if (c > ' ') seen++;
+        }
+        if (seen < count) throw new IOException(name + ":" + line + ": FASTQ record '" + header + "' has a short quality line");
+        while ((c = peek()) >= 0 && c != '\n') read();    // rest of the line (e.g. '\r')
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) >= 0 && c <= ' ') {
+            if (c == '\n') line++;
+            read();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (!buf.hasRemaining() && !fill()) return -1;
+        return buf.get(buf.position()) & 0xff;
+    }
+
+    private int read() throws IOException {
+        if (!buf.hasRemaining() && !fill()) return -1;
+        return buf.get() & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        buf.clear();
+        int n;
+        do {
+            n = channel.read(buf);
+        } while (n == 0);
+        buf.flip();
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Progress and cancellation hook for the row-by-row fills of
+ * NeedlemanWunsch and DotPlot, e.g. to drive a progress bar from a
+ * background thread.
+ *
+ * The fill calls rowsDone() after every row it completes and stops with a
+ * java.util.concurrent.CancellationException as soon as isCancelled()
+ * returns true. Both are called on the thread running the fill.
+ */
+public interface FillMonitor {
+
+    /** `done` of `total` rows are filled. */
+    void rowsDone(int done, int total);
+
+    boolean isCancelled();
+}
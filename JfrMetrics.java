@@ -0,0 +1,80 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Metrics sink that emits Java Flight Recorder events, so phase timings
+ * show up next to GC, JIT and allocation data in a recording:
+ *
+ *     java -XX:StartFlightRecording=filename=run.jfr -cp target/classes MainApp cli --jfr pairs.fa
+ *     jfr print --events bioinfo.Phase run.jfr
+ *
+ * Events are only built while a recording has them enabled.
+ */
+public class JfrMetrics implements Metrics.Sink {
+
+    @Name("bioinfo.Phase")
+    @Label("Alignment Phase")
+    @Category("Bioinformatics")
+    @Description("One timed phase of an alignment or dot-plot job")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Job")
+        String job;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+
+        @Label("Cells")
+        long cells;
+
+        @Label("GCUPS")
+        @Description("Billions of cells per second")
+        double gcups;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("bioinfo.QueueDepth")
+    @Label("Queue Depth")
+    @Category("Bioinformatics")
+    @StackTrace(false)
+    static class QueueEvent extends Event {
+        @Label("Queue")
+        String queue;
+
+        @Label("Depth")
+        int depth;
+    }
+
+    public void phase(String job, String phase, long nanos, long cells, long allocatedBytes) {
+        PhaseEvent e = new PhaseEvent();
+        if (!e.isEnabled()) return;
+        e.job = job;
+        e.phase = phase;
+        e.time = nanos;
+        e.cells = cells;
+        e.gcups = nanos > 0 ? (double) cells / nanos : 0;
+        e.allocated = allocatedBytes;
+        e.commit();
+    }
+
+    public void queueDepth(String queue, int depth) {
+        QueueEvent e = new QueueEvent();
+        if (!e.isEnabled()) return;
+        e.queue = queue;
+        e.depth = depth;
+        e.commit();
+    }
+}
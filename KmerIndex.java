@@ -0,0 +1,148 @@
+/**
+ * Index of every k-mer of a sequence, for sparse dot-plots and seeding.
+ *
+ * Residues are packed into a long key (bits per residue depend on the
+ * sequence's alphabet, e.g. 2 for DNA, 3 once an N shows up), so k-mers
+ * are compared exactly without any boxing as long as they fit in 62 bits.
+ * Longer k-mers get a rolling hash as key instead, and every hit is then
+ * confirmed against the sequences, so any k works for any alphabet. The
+ * keys live in an open-addressing long hash table and the positions of
+ * each key are stored contiguously, in increasing order, in one int[]
+ * (compressed-row layout).
+ */
+public class KmerIndex {
+
+    private static final long EMPTY = -1;
+    private static final long HASH_BASE = 0x100000001B3L;    // odd, so the rolling hash loses nothing
+
+    private final String seq;
+    private final int k;
+    private final int[] code = new int[128];    // residue -> code, -1 if absent
+    private final int bits;
+    private final boolean exact;                // keys are the packed k-mers themselves
+    private final long keyMask;                 // exact keys: the low bits * k bits
+    private final long outFactor;               // hashed keys: HASH_BASE^k
+
+    private final long[] keys;     // hash table of k-mer keys (EMPTY = empty)
+    private final int[] starts;    // per table slot: first index into positions
+    private final int[] ends;
+    private final int[] positions;
+    private final int tableMask, tableShift;
+
+    public KmerIndex(String seq, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        this.seq = seq;
+        this.k = k;
+
+        java.util.Arrays.fill(code, -1);
+        int alphabet = 0;
+        for (int j = 0; j < seq.length(); j++) {
+            char c = seq.charAt(j);
+            if (c >= 128) throw new IllegalArgumentException("non-ASCII residue '" + c + "'");
+            if (code[c] < 0) code[c] = alphabet++;
+        }
+        this.bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, alphabet - 1)));
+        this.exact = (long) bits * k <= 62;
+        this.keyMask = exact ? (1L << (bits * k)) - 1 : -1L;
+        long power = 1;
+        for (int p = 0; p < k; p++) power *= HASH_BASE;
+        this.outFactor = power;
+
+        int count = Math.max(0, seq.length() - k + 1);
+        int capacity = Integer.highestOneBit(Math.max(2, count) * 2 - 1) << 1;
+        this.tableMask = capacity - 1;
+        this.tableShift = Long.numberOfLeadingZeros(capacity) + 1;
+        this.keys = new long[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        java.util.Arrays.fill(keys, EMPTY);
+
+        // pass 1: count each k-mer, pass 2: place positions in order
+        int[] slotOf = new int[count];
+        long key = 0;
+        for (int j = 0; j < seq.length(); j++) {
+            int out = (j >= k) ? code[seq.charAt(j - k)] : -1;
+            key = next(key, code[seq.charAt(j)], out);
+            if (j >= k - 1) {
+                int slot = slotFor(key);
+                keys[slot] = key;
+                ends[slot]++;
+                slotOf[j - k + 1] = slot;
+            }
+        }
+        int total = 0;
+        for (int s = 0; s < capacity; s++) {
+            starts[s] = total;
+            total += ends[s];
+            ends[s] = starts[s];
+        }
+        this.positions = new int[count];
+        for (int p = 0; p < count; p++) positions[ends[slotOf[p]]++] = p;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    /**
+     * Key after appending residue code c; out is the code of the residue
+     * leaving the window, or -1 while the window is not full yet.
+     */
+    private long next(long key, int c, int out) {
+        if (exact) return ((key << bits) | c) & keyMask;
+        key = key * HASH_BASE + c + 1;
+        if (out >= 0) key -= (out + 1) * outFactor;
+        return key == EMPTY ? EMPTY - 1 : key;    // keep EMPTY free; hits(...) confirms every match anyway
+    }
+
+    /** Table slot holding key, or the empty slot where it would go. */
+    private int slotFor(long key) {
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> tableShift);   // multiplicative hash, top bits
+        while (keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & tableMask;
+        return slot;
+    }
+
+    /**
+     * Match all k-mers of query against the index. Each hit (i, j) means
+     * query[i, i+k) == seq[j, j+k) and is packed as (i << 32) | j; the
+     * array is sorted by i, then j.
+     */
+    public long[] hits(String query) {
+        long[] out = new long[1024];
+        int count = 0;
+        long key = 0;
+        int valid = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char ch = query.charAt(i);
+            int c = (ch < 128) ? code[ch] : -1;
+            if (c < 0) {          // residue not in the index: no k-mer can contain it
+                valid = 0;
+                key = 0;
+                continue;
+            }
+            key = next(key, c, ++valid > k ? code[query.charAt(i - k)] : -1);
+            if (valid < k) continue;
+
+            int slot = slotFor(key);
+            if (keys[slot] == EMPTY) continue;
+            int start = i - k + 1;
+            long row = (long) start << 32;
+            for (int p = starts[slot]; p < ends[slot]; p++) {
+                if (!exact && !query.regionMatches(start, seq, positions[p], k)) continue;
+                if (count == out.length) out = java.util.Arrays.copyOf(out, count * 2);
+                out[count++] = row | positions[p];
+            }
+        }
+        return java.util.Arrays.copyOf(out, count);
+    }
+
+    /** Query position of a packed hit. */
+    public static int hitRow(long hit) {
+        return (int) (hit >>> 32);
+    }
+
+    /** Indexed-sequence position of a packed hit. */
+    public static int hitCol(long hit) {
+        return (int) hit;
+    }
+}
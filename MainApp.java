@@ -16,7 +16,14 @@
 public class MainApp {
     public static void main(String[] args) {
     // If 'cli' is supplied as argument run the console flow, otherwise start the GUI
-    if (args != null && args.length > 0 && args[0].equalsIgnoreCase("cli")) {
+    if (args != null && args.length > 0 && args[0].equalsIgnoreCase("server")) {
+      // server [options]: answer alignment requests over HTTP on localhost until killed
+      int code = runServer(java.util.Arrays.copyOfRange(args, 1, args.length));
+      if (code != 0) System.exit(code);
+    } else if (args != null && args.length > 1 && args[0].equalsIgnoreCase("cli")) {
+      // cli [options] file1 [file2]: align the pairs read from FASTA/FASTQ files
+      System.exit(runFiles(java.util.Arrays.copyOfRange(args, 1, args.length)));
+    } else if (args != null && args.length > 0 && args[0].equalsIgnoreCase("cli")) {
       String seq1 = "TTTTGGGCGATAGCTAAAGCTC";
       String seq2 = "ATTGGGCGGTAGCTTAAGGTC";
 
@@ -40,4 +47,120 @@ public class MainApp {
       });
     }
     }
+
+    private static final String USAGE =
+            "usage: MainApp cli [--score-only] [--dotplot] [--matrix] [--seed K] [--threads N] [--queue N]\n"
+            + "               [--jfr] [--metrics-port N] file1 [file2]\n"
+            + "  Aligns record k of file1 with record k of file2, or consecutive records of file1.\n"
+            + "  Files are FASTA or FASTQ, optionally gzip-compressed; '-' reads standard input.\n"
+            + "  --jfr emits Flight Recorder events; --metrics-port serves Prometheus metrics on localhost.";
+
+    private static final String SERVER_USAGE =
+            "usage: MainApp server [--port N] [--threads N] [--queue N] [--batch N] [--metrics]\n"
+            + "  Serves POST /align[?mode=global|local|glocal|overlap][&scoreOnly=true] and POST /dotplot\n"
+            + "  on 127.0.0.1 (two sequences per request body, one per line); --metrics adds GET /metrics.";
+
+    /** Starts the server mode; returns 0 once it listens (it keeps running), else the exit code. */
+    static int runServer(String[] args) {
+        int port = 8750;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = -1;
+        int batch = 16;
+        boolean metrics = false;
+        try {
+            for (int k = 0; k < args.length; k++) {
+                String a = args[k];
+                if (a.equals("--port") && k + 1 < args.length) port = Integer.parseInt(args[++k]);
+                else if (a.equals("--threads") && k + 1 < args.length) threads = Integer.parseInt(args[++k]);
+                else if (a.equals("--queue") && k + 1 < args.length) queue = Integer.parseInt(args[++k]);
+                else if (a.equals("--batch") && k + 1 < args.length) batch = Integer.parseInt(args[++k]);
+                else if (a.equals("--metrics")) metrics = true;
+                else throw new IllegalArgumentException("unknown option " + a);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(SERVER_USAGE);
+            return 2;
+        }
+
+        try {
+            AlignmentServer server = new AlignmentServer(ScoringModel.DEFAULT, Math.max(1, threads),
+                    queue > 0 ? queue : 64 * Math.max(1, threads), Math.max(1, batch));
+            if (metrics) {
+                PrometheusMetrics prometheus = new PrometheusMetrics();
+                Metrics.addSink(prometheus);
+                server.setMetrics(prometheus);
+            }
+            server.start(port);
+            System.err.println("listening on http://127.0.0.1:" + server.port());
+            return 0;
+        } catch (java.io.IOException | IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /** The file-driven cli mode; returns the process exit code. */
+    static int runFiles(String[] args) {
+        boolean scoreOnly = false, dotPlot = false, matrix = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = -1;
+        int seed = 0;
+        boolean jfr = false;
+        int metricsPort = -1;
+        java.util.List<String> files = new java.util.ArrayList<>();
+        try {
+            for (int k = 0; k < args.length; k++) {
+                String a = args[k];
+                if (a.equals("--score-only")) scoreOnly = true;
+                else if (a.equals("--dotplot")) dotPlot = true;
+                else if (a.equals("--matrix")) matrix = true;
+                else if (a.equals("--threads") && k + 1 < args.length) threads = Integer.parseInt(args[++k]);
+                else if (a.equals("--seed") && k + 1 < args.length) seed = Integer.parseInt(args[++k]);
+                else if (a.equals("--jfr")) jfr = true;
+                else if (a.equals("--metrics-port") && k + 1 < args.length) metricsPort = Integer.parseInt(args[++k]);
+                else if (a.equals("--queue") && k + 1 < args.length) queue = Integer.parseInt(args[++k]);
+                else if (a.startsWith("--")) throw new IllegalArgumentException("unknown option " + a);
+                else files.add(a);
+            }
+            if (files.isEmpty() || files.size() > 2) throw new IllegalArgumentException("expected one or two files");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        AlignmentPipeline pipeline = new AlignmentPipeline(ScoringModel.DEFAULT, Math.max(1, threads),
+                queue > 0 ? queue : 4 * Math.max(1, threads));
+        pipeline.setScoreOnly(scoreOnly);
+        pipeline.setPrintDotPlot(dotPlot);
+        pipeline.setPrintMatrix(matrix);
+        pipeline.setSeed(seed);
+
+        if (jfr) Metrics.addSink(new JfrMetrics());
+        com.sun.net.httpserver.HttpServer metrics = null;
+        if (metricsPort >= 0) {
+            PrometheusMetrics prometheus = new PrometheusMetrics();
+            Metrics.addSink(prometheus);
+            try {
+                metrics = prometheus.serve(metricsPort);
+                System.err.println("metrics at http://127.0.0.1:" + metrics.getAddress().getPort() + "/metrics");
+            } catch (java.io.IOException e) {
+                System.err.println("error: metrics port " + metricsPort + ": " + e.getMessage());
+                return 1;
+            }
+        }
+
+        java.io.Writer out = new java.io.BufferedWriter(new java.io.OutputStreamWriter(System.out), 1 << 16);
+        try (FastxReader first = FastxReader.open(files.get(0));
+             FastxReader second = files.size() > 1 ? FastxReader.open(files.get(1)) : null) {
+            pipeline.run(first, second, out);
+            return 0;
+        } catch (java.io.IOException | IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            return 1;
+        } finally {
+            if (metrics != null) metrics.stop(0);
+        }
+    }
 }
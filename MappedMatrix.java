@@ -0,0 +1,140 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A ScoreMatrix in a memory-mapped temporary file, for DP matrices that do
+ * not fit on the heap (a 50k x 50k matrix is 10 GB). The operating system
+ * pages the cells in and out, so only the rows being filled and the cells
+ * being traced back or painted need to be in memory.
+ *
+ * The cells are stored in 64 x 64 tiles of 16 KB, row-major inside a tile
+ * and tile after tile along each band of 64 rows. A row fill writes 256
+ * contiguous bytes per tile; the traceback, which walks diagonally, and
+ * the MatrixView, which reads a rectangle, stay inside a few tiles at a
+ * time instead of touching one page per row.
+ *
+ * The file is mapped in 1 GB pieces (the limit of one mapping is 2 GB)
+ * and is deleted by close(). The JVM only unmaps it when the buffers are
+ * garbage collected, so disk space may be released a little later. The
+ * matrix must not be used after close().
+ */
+public class MappedMatrix implements ScoreMatrix, Closeable {
+
+    private static final int TILE_SHIFT = 6;                 // 64 x 64 cells per tile
+    private static final int TILE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE - 1;
+    private static final int CHUNK_SHIFT = 28;               // 2^28 ints = 1 GB per mapping
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final int rows, cols;
+    private final int tileCols;
+    private final long cells;                                 // including the padding of the last tiles
+    private final FileChannel channel;
+    private IntBuffer[] chunks;
+
+    private MappedMatrix(int rows, int cols, FileChannel channel) throws IOException {
+        this.rows = rows;
+        this.cols = cols;
+        this.tileCols = (cols + TILE_MASK) >>> TILE_SHIFT;
+        int tileRows = (rows + TILE_MASK) >>> TILE_SHIFT;
+        this.cells = (long) tileRows * tileCols * TILE * TILE;
+        this.channel = channel;
+
+        long pieces = (cells + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (pieces > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("matrix too large to map: " + rows + " x " + cols);
+        int count = (int) pieces;
+        chunks = new IntBuffer[count];
+        for (int c = 0; c < count; c++) {
+            long first = (long) c << CHUNK_SHIFT;
+            long size = Math.min(1L << CHUNK_SHIFT, cells - first);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 4 * first, 4 * size);
+            chunks[c] = map.order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    /**
+     * A zero-filled matrix in a new temporary file in `dir` (the default
+     * temporary directory when null); put it on a local disk with room for
+     * about 4 * rows * cols bytes.
+     */
+    public static MappedMatrix create(int rows, int cols, Path dir) throws IOException {
+        if (rows < 1 || cols < 1)
+            throw new IllegalArgumentException("matrix must be at least 1 x 1, got " + rows + " x " + cols);
+        Path file = (dir == null) ? Files.createTempFile("dp-matrix", ".bin") : Files.createTempFile(dir, "dp-matrix", ".bin");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            return new MappedMatrix(rows, cols, channel);
+        } catch (IOException | RuntimeException | Error e) {
+            // DELETE_ON_CLOSE only covers a channel that was opened; map() may also run out of memory
+            try {
+                if (channel != null) channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    /** Position of cell (i, j) in ints from the start of the file. */
+    private long index(int i, int j) {
+        long tile = (long) (i >>> TILE_SHIFT) * tileCols + (j >>> TILE_SHIFT);
+        return (tile << (2 * TILE_SHIFT)) + ((i & TILE_MASK) << TILE_SHIFT) + (j & TILE_MASK);
+    }
+
+    public int get(int i, int j) {
+        java.util.Objects.checkIndex(i, rows);
+        java.util.Objects.checkIndex(j, cols);
+        long k = index(i, j);
+        return chunks[(int) (k >>> CHUNK_SHIFT)].get((int) k & CHUNK_MASK);
+    }
+
+    public void getRow(int i, int[] dst) {
+        java.util.Objects.checkIndex(i, rows);
+        for (int j = 0; j < cols; j += TILE) {
+            long k = index(i, j);    // a tile row never crosses a chunk
+            chunks[(int) (k >>> CHUNK_SHIFT)].get((int) k & CHUNK_MASK, dst, j, Math.min(TILE, cols - j));
+        }
+    }
+
+    public void setRow(int i, int[] src) {
+        java.util.Objects.checkIndex(i, rows);
+        for (int j = 0; j < cols; j += TILE) {
+            long k = index(i, j);
+            chunks[(int) (k >>> CHUNK_SHIFT)].put((int) k & CHUNK_MASK, src, j, Math.min(TILE, cols - j));
+        }
+    }
+
+    public int[] rowBuffer(int i, int[] spare) {
+        return spare;
+    }
+
+    /** Size of the file, with the last tiles padded to 64 x 64. */
+    public long bytes() {
+        return 4 * cells;
+    }
+
+    /** Deletes the file; the mapping goes when the buffers are collected. */
+    public void close() throws IOException {
+        chunks = null;
+        channel.close();
+    }
+}
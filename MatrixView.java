@@ -0,0 +1,205 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+
+/**
+ * Custom-painted Needleman–Wunsch DP matrix for BioinfoGUI.
+ *
+ * Cells are read from AlignmentResult.scores while painting (on the heap
+ * or in a MappedMatrix), and only the cells inside the clip are drawn, so
+ * the cost follows the visible area rather than the matrix size. The
+ * traceback path visits a contiguous run of columns in every row, so
+ * membership is kept as one [from, to] column range per row instead of a
+ * set of coordinates.
+ */
+public class MatrixView extends JComponent implements Scrollable {
+
+    private static final Color PATH = new Color(255, 229, 153);
+    private static final Color PATH_BORDER = new Color(255, 140, 0);
+    private static final Color POSITIVE = new Color(200, 255, 200);
+    private static final Color ZERO = new Color(245, 245, 245);
+    private static final Color NEGATIVE = new Color(255, 220, 220);
+    private static final Color GRID = new Color(220, 220, 220);
+    private static final Color HEADER = new Color(240, 240, 240);
+
+    private final ScoreMatrix matrix;
+    private final String seq1, seq2;
+    private final int[] pathFrom, pathTo;     // path columns of row i, empty when from > to
+    private final int cellWidth, cellHeight;
+
+    public MatrixView(NeedlemanWunsch.AlignmentResult res, String seq1, String seq2) {
+        this.matrix = res.scores;
+        this.seq1 = seq1;
+        this.seq2 = seq2;
+
+        int rows = matrix.rows();
+        pathFrom = new int[rows];
+        pathTo = new int[rows];
+        java.util.Arrays.fill(pathFrom, Integer.MAX_VALUE);
+        java.util.Arrays.fill(pathTo, -1);
+        if (res.path() != null) {
+            for (int[] coord : res.path()) {
+                int i = coord[0], j = coord[1];
+                if (i < 0 || i >= rows) continue;
+                pathFrom[i] = Math.min(pathFrom[i], j);
+                pathTo[i] = Math.max(pathTo[i], j);
+            }
+        }
+
+        setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        FontMetrics fm = getFontMetrics(getFont());
+        cellWidth = Math.max(28, fm.stringWidth("-" + widestValue()) + 10);
+        cellHeight = fm.getHeight() + 6;
+
+        setOpaque(true);
+        setBackground(Color.white);
+        setToolTipText("");
+    }
+
+    /**
+     * Largest |value| to size the cells for. Scanning every cell would
+     * stall the event thread on a big matrix (and page in all of a mapped
+     * one), so only the first and last rows and columns, where a fill has
+     * its extreme gap runs and final scores, and the traceback path, which
+     * holds the local maxima, are read.
+     */
+    private int widestValue() {
+        int rows = matrix.rows(), cols = matrix.cols();
+        int widest = 0;
+        int[] row = new int[cols];
+        for (int i : new int[]{0, rows - 1}) {
+            matrix.getRow(i, row);
+            for (int v : row) widest = Math.max(widest, Math.abs(v));
+        }
+        for (int i = 0; i < rows; i++) {
+            widest = Math.max(widest, Math.abs(matrix.get(i, 0)));
+            widest = Math.max(widest, Math.abs(matrix.get(i, cols - 1)));
+            if (pathFrom[i] <= pathTo[i]) {
+                widest = Math.max(widest, Math.abs(matrix.get(i, pathFrom[i])));
+                widest = Math.max(widest, Math.abs(matrix.get(i, pathTo[i])));
+            }
+        }
+        return widest;
+    }
+
+    /** True when cell (i, j) lies on the traceback path. */
+    boolean onPath(int i, int j) {
+        return j >= pathFrom[i] && j <= pathTo[i];
+    }
+
+    /**
+     * Scroll pane around this view with "-" and seq2 along the top and "-"
+     * and seq1 down the side, like the text matrix.
+     */
+    public JScrollPane createScrollPane() {
+        JScrollPane scroll = new JScrollPane(this);
+        scroll.setColumnHeaderView(new Header(true));
+        scroll.setRowHeaderView(new Header(false));
+        JLabel corner = new JLabel("");
+        corner.setOpaque(true);
+        corner.setBackground(HEADER);
+        scroll.setCorner(ScrollPaneConstants.UPPER_LEFT_CORNER, corner);
+        return scroll;
+    }
+
+    private class Header extends JComponent {
+        private final boolean horizontal;
+
+        Header(boolean horizontal) {
+            this.horizontal = horizontal;
+            setOpaque(true);
+            setBackground(HEADER);
+            setFont(MatrixView.this.getFont());
+        }
+
+        public Dimension getPreferredSize() {
+            Dimension size = MatrixView.this.getPreferredSize();
+            return horizontal ? new Dimension(size.width, cellHeight) : new Dimension(cellWidth, size.height);
+        }
+
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+            String seq = horizontal ? seq2 : seq1;
+            int step = horizontal ? cellWidth : cellHeight;
+            int start = horizontal ? clip.x : clip.y;
+            int end = start + (horizontal ? clip.width : clip.height);
+            int from = start / step;
+            int to = Math.min(seq.length(), end / step);
+            FontMetrics fm = g.getFontMetrics();
+            for (int k = from; k <= to; k++) {
+                String letter = (k == 0) ? "-" : String.valueOf(seq.charAt(k - 1));
+                int x = horizontal ? k * cellWidth : 0;
+                int y = horizontal ? 0 : k * cellHeight;
+                g.setColor(Color.lightGray);
+                g.drawRect(x, y, cellWidth - 1, cellHeight - 1);
+                g.setColor(Color.darkGray);
+                g.drawString(letter, x + (cellWidth - fm.stringWidth(letter)) / 2, y + (cellHeight + fm.getAscent()) / 2 - 2);
+            }
+        }
+    }
+
+    public Dimension getPreferredSize() {
+        return new Dimension(matrix.cols() * cellWidth, matrix.rows() * cellHeight);
+    }
+
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(getSize());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int rows = matrix.rows(), cols = matrix.cols();
+        int i0 = clip.y / cellHeight, i1 = Math.min(rows - 1, (clip.y + clip.height) / cellHeight);
+        int j0 = clip.x / cellWidth, j1 = Math.min(cols - 1, (clip.x + clip.width) / cellWidth);
+        FontMetrics fm = g.getFontMetrics();
+        int baseline = (cellHeight + fm.getAscent()) / 2 - 2;
+
+        for (int i = i0; i <= i1; i++) {
+            int y = i * cellHeight;
+            for (int j = j0; j <= j1; j++) {
+                int x = j * cellWidth;
+                int value = matrix.get(i, j);
+                boolean path = onPath(i, j);
+                g.setColor(path ? PATH : value > 0 ? POSITIVE : value == 0 ? ZERO : NEGATIVE);
+                g.fillRect(x, y, cellWidth, cellHeight);
+                g.setColor(path ? PATH_BORDER : GRID);
+                g.drawRect(x, y, cellWidth - 1, cellHeight - 1);
+
+                String text = Integer.toString(value);
+                g.setColor(Color.black);
+                g.drawString(text, x + (cellWidth - fm.stringWidth(text)) / 2, y + baseline);
+            }
+        }
+    }
+
+    public String getToolTipText(MouseEvent e) {
+        int i = e.getY() / cellHeight, j = e.getX() / cellWidth;
+        if (i >= matrix.rows() || j >= matrix.cols()) return null;
+        return "(" + i + "," + j + ") = " + matrix.get(i, j) + (onPath(i, j) ? " (traceback)" : "");
+    }
+
+    // Scrollable: scroll by whole cells
+
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? cellHeight : cellWidth;
+    }
+
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+    }
+
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
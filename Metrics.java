@@ -0,0 +1,95 @@
+/**
+ * Timings of the hot paths (DP fills, tracebacks, dot-plots) and queue
+ * depths of the batch runs, reported to the installed sinks: JfrMetrics
+ * for Flight Recorder events, PrometheusMetrics for a /metrics endpoint.
+ *
+ * Nothing is installed by default, and then start() returns a shared
+ * no-op Timer: an instrumented call costs one volatile read and no
+ * allocation. With a sink installed every phase reports its wall time,
+ * the DP cells it computed (cells / nanos = GCUPS) and the bytes the
+ * calling thread allocated meanwhile (0 when the JVM cannot tell).
+ *
+ *     Metrics.Timer t = Metrics.start("align", "fill");
+ *     ... fill ...
+ *     t.stop(rows * cols);
+ */
+public final class Metrics {
+
+    /** Receives the measurements; called on the measuring thread, so keep it cheap. */
+    public interface Sink {
+        void phase(String job, String phase, long nanos, long cells, long allocatedBytes);
+
+        void queueDepth(String queue, int depth);
+    }
+
+    private static final Sink[] NONE = new Sink[0];
+    private static volatile Sink[] sinks = NONE;
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private Metrics() {
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() ? threads : null;
+    }
+
+    public static synchronized void addSink(Sink sink) {
+        Sink[] s = java.util.Arrays.copyOf(sinks, sinks.length + 1);
+        s[sinks.length] = sink;
+        sinks = s;
+    }
+
+    public static synchronized void removeSink(Sink sink) {
+        java.util.List<Sink> s = new java.util.ArrayList<>(java.util.Arrays.asList(sinks));
+        s.remove(sink);
+        sinks = s.isEmpty() ? NONE : s.toArray(NONE);
+    }
+
+    public static boolean enabled() {
+        return sinks.length > 0;
+    }
+
+    /** Start timing `phase` of `job`; stop() the returned Timer when it is done. */
+    public static Timer start(String job, String phase) {
+        Sink[] s = sinks;
+        if (s.length == 0) return Timer.OFF;
+        return new Timer(s, job, phase);
+    }
+
+    public static void queueDepth(String queue, int depth) {
+        for (Sink s : sinks) s.queueDepth(queue, depth);
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /** One running phase. */
+    public static class Timer {
+        static final Timer OFF = new Timer(NONE, null, null);
+
+        private final Sink[] sinks;
+        private final String job, phase;
+        private final long startNanos, startBytes;
+
+        private Timer(Sink[] sinks, String job, String phase) {
+            this.sinks = sinks;
+            this.job = job;
+            this.phase = phase;
+            this.startBytes = sinks.length == 0 ? 0 : allocatedBytes();
+            this.startNanos = sinks.length == 0 ? 0 : System.nanoTime();
+        }
+
+        /** The phase is over after computing `cells` DP or dot-plot cells (0 if not applicable). */
+        public void stop(long cells) {
+            if (sinks.length == 0) return;
+            long nanos = System.nanoTime() - startNanos;
+            long bytes = Math.max(0, allocatedBytes() - startBytes);
+            for (Sink s : sinks) s.phase(job, phase, nanos, cells, bytes);
+        }
+    }
+}
@@ -1,38 +1,297 @@
 public class NeedlemanWunsch {
 
     private String seq1, seq2;
-    private int match = 1, mismatch = -1, gap = -1;
+    private final ScoringModel scoring;
+    private final byte[] code1, code2;   // residues encoded by the scoring model
+    private final int gap;               // gap score of the linear model
+    private FillMonitor monitor;         // optional, see setMonitor()
 
     public NeedlemanWunsch(String s1, String s2) {
+        this(s1, s2, ScoringModel.DEFAULT);
+    }
+
+    public NeedlemanWunsch(String s1, String s2, ScoringModel scoring) {
         this.seq1 = s1;
         this.seq2 = s2;
+        this.scoring = scoring;
+        byte[][] codes = scoring.encodeAll(s1, s2);
+        this.code1 = codes[0];
+        this.code2 = codes[1];
+        this.gap = scoring.gapExtend();
+    }
+
+    public ScoringModel getScoring() {
+        return scoring;
+    }
+
+    /**
+     * Report the progress of createMatrix() and align() (rows of the DP
+     * matrix filled) to `monitor`, which can also cancel them. null
+     * removes it.
+     */
+    public void setMonitor(FillMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /** Row `done` of `total` is filled; stops the fill when cancelled. */
+    private void rowFilled(int done, int total) {
+        if (monitor == null) return;
+        if (monitor.isCancelled()) throw new java.util.concurrent.CancellationException("alignment cancelled");
+        monitor.rowsDone(done, total);
     }
 
+    /**
+     * Which ends of the sequences may be left unaligned at no cost.
+     *
+     * GLOBAL aligns both sequences end to end (the classic algorithm).
+     * LOCAL (Smith–Waterman) aligns the best-scoring pair of substrings.
+     * GLOCAL aligns all of seq1 against any part of seq2, e.g. a read
+     * against a longer reference. OVERLAP also leaves seq1's ends free, so
+     * a suffix of one sequence is aligned with a prefix of the other (or
+     * one is contained in the other).
+     */
+    public enum Mode {
+        GLOBAL(false, false), LOCAL(true, true), GLOCAL(false, true), OVERLAP(true, true);
+
+        final boolean freeEnds1, freeEnds2;   // leading/trailing residues of seq1 / seq2 are free
+
+        Mode(boolean freeEnds1, boolean freeEnds2) {
+            this.freeEnds1 = freeEnds1;
+            this.freeEnds2 = freeEnds2;
+        }
+    }
+
+    /**
+     * Fill the DP matrix. With affine gaps this is the best-of-three matrix
+     * of Gotoh's recurrence.
+     */
     public int[][] createMatrix() {
-        int rows = seq1.length() + 1;
-        int cols = seq2.length() + 1;
+        ScoreMatrix.Heap matrix = allocate("createMatrix");
+        createMatrix(matrix);
+        return matrix.array;
+    }
+
+    /**
+     * Fill the DP matrix into `into`, which must be (|seq1| + 1) x
+     * (|seq2| + 1): a MappedMatrix when it is too large for the heap.
+     */
+    public void createMatrix(ScoreMatrix into) {
+        checkShape(into);
+        Metrics.Timer timer = Metrics.start("createMatrix", "fill");
+        if (!scoring.isLinear()) fillAffine(null, null, Mode.GLOBAL, null, into);
+        else fill(Mode.GLOBAL, null, into);
+        timer.stop(cells());
+    }
 
-        int[][] matrix = new int[rows][cols];
+    /** Cells of the full DP matrix, for Metrics. */
+    private long cells() {
+        return (long) (seq1.length() + 1) * (seq2.length() + 1);
+    }
+
+    private void checkShape(ScoreMatrix m) {
+        if (m.rows() != seq1.length() + 1 || m.cols() != seq2.length() + 1)
+            throw new IllegalArgumentException("matrix is " + m.rows() + " x " + m.cols() + ", expected "
+                    + (seq1.length() + 1) + " x " + (seq2.length() + 1));
+    }
 
-        for (int i = 0; i < rows; i++)
-            matrix[i][0] = i * gap;
+    /**
+     * Linear-gap fill for any mode. The first row/column cost nothing when
+     * the matching sequence has free ends, and LOCAL clamps every cell at 0.
+     * When `end` is given it receives the score and cell {score, i, j} where
+     * the alignment ends.
+     */
+    private void fill(Mode mode, int[] end, ScoreMatrix matrix) {
+        int rows = seq1.length() + 1;
+        int cols = seq2.length() + 1;
+        boolean local = (mode == Mode.LOCAL);
 
+        int colGap = mode.freeEnds1 ? 0 : gap;
+        int rowGap = mode.freeEnds2 ? 0 : gap;
+        int[] prev = matrix.rowBuffer(0, new int[cols]);
+        int[] spare = new int[cols];
         for (int j = 0; j < cols; j++)
-            matrix[0][j] = j * gap;
+            prev[j] = j * rowGap;
+        matrix.setRow(0, prev);
 
+        int best = 0, bestI = 0, bestJ = 0;
+        int gain = localGain();
         for (int i = 1; i < rows; i++) {
-            for (int j = 1; j < cols; j++) {
+            int[] sub = scoring.row(code1[i - 1]);
+            int[] cur = matrix.rowBuffer(i, spare);
+            cur[0] = i * colGap;
+            int rowMax = 0;
+            if (local) {
+                int rowArg = 0;
+                for (int j = 1; j < cols; j++) {
+                    int diag = prev[j - 1] + sub[code2[j - 1]];
+                    int up = prev[j] + gap;
+                    int left = cur[j - 1] + gap;
+                    int v = Math.max(0, Math.max(diag, Math.max(up, left)));
+                    cur[j] = v;
+                    if (v > rowMax) {
+                        rowMax = v;
+                        rowArg = j;
+                    }
+                }
+                if (rowMax > best) {
+                    best = rowMax;
+                    bestI = i;
+                    bestJ = rowArg;
+                }
+            } else {
+                for (int j = 1; j < cols; j++) {
 
-                int diag = matrix[i - 1][j - 1] +
-                        (seq1.charAt(i - 1) == seq2.charAt(j - 1) ? match : mismatch);
+                    int diag = prev[j - 1] + sub[code2[j - 1]];
 
-                int up = matrix[i - 1][j] + gap;
-                int left = matrix[i][j - 1] + gap;
+                    int up = prev[j] + gap;
+                    int left = cur[j - 1] + gap;
 
-                matrix[i][j] = Math.max(diag, Math.max(up, left));
+                    cur[j] = Math.max(diag, Math.max(up, left));
+                }
+            }
+            matrix.setRow(i, cur);
+            spare = prev;
+            prev = cur;
+            rowFilled(i, rows - 1);
+            if (local && gain >= 0 && best >= rowMax + (long) gain * Math.min(rows - 1 - i, cols - 1)) break;
+        }
+
+        if (end != null) {
+            if (local) {
+                end[0] = best;
+                end[1] = bestI;
+                end[2] = bestJ;
+            } else {
+                endCell(matrix, mode, end);
+            }
+        }
+    }
+
+    /**
+     * Highest score one more row can add to a local alignment, or -1 when
+     * positive gap scores make the early stop of LOCAL fills unsafe. Once
+     * the best cell so far is at least the current row's maximum plus this
+     * much for every remaining row, no later cell can beat it and the fill
+     * stops (the rows below are left at 0).
+     */
+    private int localGain() {
+        if (scoring.gapOpen() > 0 || scoring.gapExtend() > 0) return -1;
+        return Math.max(0, scoring.maxScore());
+    }
+
+    /**
+     * Where a non-local alignment ends: the corner for GLOBAL, the best
+     * cell of the last row when seq2's ends are free, of the last column
+     * when seq1's are, and of both for OVERLAP. Ties go to the earliest
+     * cell, last column first.
+     */
+    private static void endCell(ScoreMatrix h, Mode mode, int[] end) {
+        int m = h.rows() - 1;
+        int n = h.cols() - 1;
+        int bi = m, bj = n;
+        if (mode.freeEnds1 || mode.freeEnds2) {
+            int best = Integer.MIN_VALUE;
+            if (mode.freeEnds1) {
+                for (int i = 0; i <= m; i++) if (h.get(i, n) > best) { best = h.get(i, n); bi = i; bj = n; }
+            }
+            if (mode.freeEnds2) {
+                for (int j = 0; j <= n; j++) if (h.get(m, j) > best) { best = h.get(m, j); bi = m; bj = j; }
+            }
+        }
+        end[0] = h.get(bi, bj);
+        end[1] = bi;
+        end[2] = bj;
+    }
+
+    /** True when the traceback of a `mode` alignment stops at cell (i, j) of H. */
+    private static boolean isStart(Mode mode, ScoreMatrix h, int i, int j) {
+        if (mode == Mode.LOCAL) return h.get(i, j) == 0;
+        return (i == 0 && (j == 0 || mode.freeEnds2)) || (j == 0 && mode.freeEnds1);
+    }
+
+    /**
+     * Gotoh's three-matrix fill. Fills H, the best score of any alignment
+     * ending in each cell; when x/y are given they receive the scores of the
+     * alignments ending with a gap in seq2 (x, vertical move) or in seq1
+     * (y, horizontal move), which the traceback needs. Modes are handled as
+     * in fill(); only H is clamped at 0 in LOCAL mode.
+     */
+    private void fillAffine(int[][] x, int[][] y, Mode mode, int[] end, ScoreMatrix h) {
+        int rows = seq1.length() + 1;
+        int cols = seq2.length() + 1;
+        int open = scoring.gapOpen();
+        int extend = scoring.gapExtend();
+        int minusInf = Integer.MIN_VALUE / 2;
+        boolean local = (mode == Mode.LOCAL);
+
+        int[] prev = h.rowBuffer(0, new int[cols]);
+        int[] spare = new int[cols];
+        int[] xRow = new int[cols];    // x of the previous row, updated in place
+        prev[0] = 0;
+        for (int j = 1; j < cols; j++) {
+            prev[j] = mode.freeEnds2 ? 0 : open + (j - 1) * extend;
+            xRow[j] = minusInf;
+        }
+        h.setRow(0, prev);
+        if (x != null) x[0] = xRow.clone();
+        if (y != null) {
+            y[0] = new int[cols];
+            for (int j = 1; j < cols; j++) y[0][j] = prev[j];
+        }
+
+        int best = 0, bestI = 0, bestJ = 0;
+        int gain = localGain();
+        for (int i = 1; i < rows; i++) {
+            int[] sub = scoring.row(code1[i - 1]);
+            int[] cur = h.rowBuffer(i, spare);
+            cur[0] = mode.freeEnds1 ? 0 : open + (i - 1) * extend;
+            xRow[0] = cur[0];
+            int yLeft = minusInf;
+            int[] yOut = (y != null) ? new int[cols] : null;
+            if (yOut != null) yOut[0] = minusInf;
+            int floor = local ? 0 : minusInf;
+
+            for (int j = 1; j < cols; j++) {
+                int xv = Math.max(prev[j] + open, xRow[j] + extend);
+                int yv = Math.max(cur[j - 1] + open, yLeft + extend);
+                int diag = prev[j - 1] + sub[code2[j - 1]];
+                xRow[j] = xv;
+                yLeft = yv;
+                if (yOut != null) yOut[j] = yv;
+                cur[j] = Math.max(floor, Math.max(diag, Math.max(xv, yv)));
+            }
+            h.setRow(i, cur);
+            spare = prev;
+            prev = cur;
+            if (x != null) x[i] = xRow.clone();
+            if (y != null) y[i] = yOut;
+            rowFilled(i, rows - 1);
+            if (local) {
+                int rowMax = 0, rowArg = 0;
+                for (int j = 1; j < cols; j++) {
+                    if (cur[j] > rowMax) {
+                        rowMax = cur[j];
+                        rowArg = j;
+                    }
+                }
+                if (rowMax > best) {
+                    best = rowMax;
+                    bestI = i;
+                    bestJ = rowArg;
+                }
+                if (gain >= 0 && best >= rowMax + (long) gain * Math.min(rows - 1 - i, cols - 1)) break;
+            }
+        }
+
+        if (end != null) {
+            if (local) {
+                end[0] = best;
+                end[1] = bestI;
+                end[2] = bestJ;
+            } else {
+                endCell(h, mode, end);
             }
         }
-        return matrix;
     }
 
     /**
@@ -40,25 +299,61 @@ public class NeedlemanWunsch {
      * Returns an AlignmentResult containing the aligned sequences and score.
      */
     public AlignmentResult align() {
-        int[][] matrix = createMatrix();
+        return align(Mode.GLOBAL);
+    }
+
+    /**
+     * Align in the given mode. The result holds the aligned parts only;
+     * start1/end1 and start2/end2 say which residues of seq1 and seq2 they
+     * are. LOCAL fills stop early once no remaining row can beat the best
+     * cell, so the rows below it are left at 0 in the matrix.
+     */
+    public AlignmentResult align(Mode mode) {
+        if (!scoring.isLinear()) return alignAffine(mode);
+        return align(mode, allocate("align"));
+    }
+
+    /** A heap matrix for the DP, timed as the "allocate" phase of `job`. */
+    private ScoreMatrix.Heap allocate(String job) {
+        Metrics.Timer timer = Metrics.start(job, "allocate");
+        ScoreMatrix.Heap matrix = ScoreMatrix.onHeap(seq1.length() + 1, seq2.length() + 1);
+        timer.stop(0);
+        return matrix;
+    }
+
+    /**
+     * align(mode) with the DP matrix filled into `matrix`, e.g. a
+     * MappedMatrix for sequences whose matrix does not fit on the heap;
+     * the result's scores field is `matrix` itself. Affine models need two
+     * more matrices for the traceback and are not supported here.
+     */
+    public AlignmentResult align(Mode mode, ScoreMatrix matrix) {
+        if (!scoring.isLinear())
+            throw new IllegalArgumentException("align(mode, matrix) needs a linear gap model; use align(mode)");
+        checkShape(matrix);
+        Metrics.Timer timer = Metrics.start("align", "fill");
+        int[] end = new int[3];
+        fill(mode, end, matrix);
+        timer.stop(cells());
+        timer = Metrics.start("align", "traceback");
         StringBuilder a1 = new StringBuilder();
         StringBuilder a2 = new StringBuilder();
 
-        int i = seq1.length();
-        int j = seq2.length();
+        int i = end[1];
+        int j = end[2];
 
         java.util.List<int[]> path = new java.util.ArrayList<>();
 
-        while (i > 0 || j > 0) {
+        while (!isStart(mode, matrix, i, j)) {
             // record this coordinate as part of the path (matrix indices)
             path.add(new int[]{i, j});
             if (i > 0 && j > 0) {
-                int scoreHere = matrix[i][j];
-                int diag = matrix[i - 1][j - 1];
-                int up = (i > 0) ? matrix[i - 1][j] : Integer.MIN_VALUE/2;
-                int left = (j > 0) ? matrix[i][j - 1] : Integer.MIN_VALUE/2;
+                int scoreHere = matrix.get(i, j);
+                int diag = matrix.get(i - 1, j - 1);
+                int up = (i > 0) ? matrix.get(i - 1, j) : Integer.MIN_VALUE/2;
+                int left = (j > 0) ? matrix.get(i, j - 1) : Integer.MIN_VALUE/2;
 
-                int matchScore = (seq1.charAt(i - 1) == seq2.charAt(j - 1)) ? match : mismatch;
+                int matchScore = scoring.score(code1[i - 1], code2[j - 1]);
 
                 // Prefer diagonal when it equals the current cell
                 if (scoreHere == diag + matchScore) {
@@ -93,17 +388,795 @@ public class NeedlemanWunsch {
             }
         }
 
-        // add the final origin cell (0,0) to the path
-        path.add(new int[]{0, 0});
+        // add the start cell ((0,0) for a global alignment) to the path
+        path.add(new int[]{i, j});
 
         String aligned1 = a1.reverse().toString();
         String aligned2 = a2.reverse().toString();
-        int score = matrix[seq1.length()][seq2.length()];
 
         // reverse path so coordinates are from origin->end
         java.util.Collections.reverse(path);
+        timer.stop(0);
+
+        return new AlignmentResult(aligned1, aligned2, end[0], matrix, path, i, end[1], j, end[2]);
+    }
+
+    /**
+     * Traceback through Gotoh's three matrices. The move preference is the
+     * same as in align(): diagonal, then up, then left.
+     */
+    private AlignmentResult alignAffine(Mode mode) {
+        int rows = seq1.length() + 1;
+        int[][] x = new int[rows][];
+        int[][] y = new int[rows][];
+        int[] end = new int[3];
+        ScoreMatrix.Heap h = allocate("align");
+        Metrics.Timer timer = Metrics.start("align", "fill");
+        fillAffine(x, y, mode, end, h);
+        timer.stop(cells());
+        timer = Metrics.start("align", "traceback");
+        int open = scoring.gapOpen();
+
+        StringBuilder a1 = new StringBuilder();
+        StringBuilder a2 = new StringBuilder();
+        java.util.List<int[]> path = new java.util.ArrayList<>();
+
+        int i = end[1];
+        int j = end[2];
+        int state = 0;   // 0 = best (H), 1 = in a vertical gap (X), 2 = in a horizontal gap (Y)
+
+        while (state != 0 || !isStart(mode, h, i, j)) {
+            path.add(new int[]{i, j});
+            if (state == 0) {
+                if (i > 0 && j > 0 && h.get(i, j) == h.get(i - 1, j - 1) + scoring.score(code1[i - 1], code2[j - 1])) {
+                    a1.append(seq1.charAt(i - 1));
+                    a2.append(seq2.charAt(j - 1));
+                    i--; j--;
+                    continue;
+                }
+                state = (j == 0 || (i > 0 && h.get(i, j) == x[i][j])) ? 1 : 2;
+            }
+
+            if (state == 1) {
+                // leave the gap when it was opened here, otherwise keep extending it
+                if (i == 1 || x[i][j] == h.get(i - 1, j) + open) state = 0;
+                a1.append(seq1.charAt(i - 1));
+                a2.append('-');
+                i--;
+            } else {
+                if (j == 1 || y[i][j] == h.get(i, j - 1) + open) state = 0;
+                a1.append('-');
+                a2.append(seq2.charAt(j - 1));
+                j--;
+            }
+        }
+        path.add(new int[]{i, j});
+        java.util.Collections.reverse(path);
+        timer.stop(0);
+
+        return new AlignmentResult(a1.reverse().toString(), a2.reverse().toString(),
+                end[0], h, path, i, end[1], j, end[2]);
+    }
+
+    /**
+     * Global alignment score only. Uses a single rolling row instead of the
+     * full matrix, so it needs O(n) memory and is equal to
+     * createMatrix()[m][n]. Always the scalar loop; scoreVectorized() is
+     * the SIMD alternative.
+     */
+    public int score() {
+        Metrics.Timer timer = Metrics.start("score", "fill");
+        int[] row = new int[code2.length + 1];
+        int[] x = scoring.isLinear() ? null : new int[code2.length + 1];
+        int score = score(code1, code2, scoring, row, x);
+        timer.stop(cells());
+        return score;
+    }
+
+    /**
+     * Score-only kernel on sequences encoded together by
+     * ScoringModel.encodeAll(), with caller-supplied scratch rows of at
+     * least t.length + 1 entries (x is only used by affine models), so
+     * batch jobs can reuse their buffers from pair to pair.
+     */
+    static int score(byte[] s, byte[] t, ScoringModel scoring, int[] row, int[] x) {
+        if (!scoring.isLinear()) return scoreAffine(s, t, scoring, row, x);
+        scoreRow(scoring, s, 0, s.length, t, 0, t.length, false, row);
+        return row[t.length];
+    }
+
+    /**
+     * Rolling-row version of fillAffine() that keeps H and X for one row.
+     */
+    private static int scoreAffine(byte[] s, byte[] t, ScoringModel scoring, int[] h, int[] x) {
+        int cols = t.length + 1;
+        int open = scoring.gapOpen();
+        int extend = scoring.gapExtend();
+        int minusInf = Integer.MIN_VALUE / 2;
+
+        h[0] = 0;
+        for (int j = 1; j < cols; j++) {
+            h[j] = open + (j - 1) * extend;
+            x[j] = minusInf;
+        }
+        for (int i = 1; i <= s.length; i++) {
+            int[] sub = scoring.row(s[i - 1]);
+            int diagPrev = h[0];
+            h[0] = open + (i - 1) * extend;
+            int yLeft = minusInf;
+            for (int j = 1; j < cols; j++) {
+                int xv = Math.max(h[j] + open, x[j] + extend);
+                int yv = Math.max(h[j - 1] + open, yLeft + extend);
+                int diag = diagPrev + sub[t[j - 1]];
+                diagPrev = h[j];
+                x[j] = xv;
+                yLeft = yv;
+                h[j] = Math.max(diag, Math.max(xv, yv));
+            }
+        }
+        return h[cols - 1];
+    }
+
+    /**
+     * Seed-and-extend global alignment for long, similar sequences: exact
+     * k-mer runs of the sparse dot-plot are chained into anchors and only
+     * the pieces between them are aligned, in parallel on `pool` (see
+     * SeedExtend). Much cheaper than align() when the sequences share long
+     * matches, but only optimal among alignments through the anchors.
+     */
+    public AlignmentResult alignSeeded(int k, java.util.concurrent.ForkJoinPool pool) {
+        return new SeedExtend(seq1, seq2, scoring, k, pool).align();
+    }
+
+    /**
+     * Same matrix as createMatrix(), filled tile by tile along anti-diagonal
+     * wavefronts on the given pool (see WavefrontFill). Affine models use
+     * the sequential fill.
+     */
+    public int[][] createMatrixParallel(java.util.concurrent.ForkJoinPool pool) {
+        if (!scoring.isLinear()) return createMatrix();
+        return new WavefrontFill(code1, code2, scoring, WavefrontFill.DEFAULT_TILE, pool).fillMatrix();
+    }
+
+    /**
+     * Same value as score(), computed with a parallel wavefront fill that
+     * keeps only the tile boundaries in memory. Affine models use score().
+     */
+    public int scoreParallel(java.util.concurrent.ForkJoinPool pool) {
+        if (!scoring.isLinear()) return score();
+        return new WavefrontFill(code1, code2, scoring, WavefrontFill.DEFAULT_TILE, pool).score();
+    }
+
+    /**
+     * Same value as score(), computed 64 columns at a time by
+     * BitParallelScorer. That kernel is specific to the default scores
+     * (+1/-1/-1); any other scoring falls back to score().
+     */
+    public int scoreBitParallel() {
+        if (!scoring.isDefaultScheme()) return score();
+        Metrics.Timer timer = Metrics.start("score", "bitParallel");
+        int score = BitParallelScorer.score(seq1, seq2);
+        timer.stop(cells());
+        return score;
+    }
+
+    /**
+     * Same value as score(), computed by the SIMD kernel in
+     * vector/VectorScorer.java when it has been compiled and the JVM runs
+     * with jdk.incubator.vector; otherwise by the scalar rolling row.
+     *
+     * This is the only vectorized entry point, and only for linear gap
+     * models. score(), createMatrix(), align() and the batch kernels stay
+     * on the scalar loops: the SIMD kernel sweeps anti-diagonals and keeps
+     * no matrix rows, and score() stays the scalar reference that the
+     * benchmarks compare against.
+     */
+    public int scoreVectorized() {
+        return VectorKernel.INSTANCE.score(code1, code2, scoring);
+    }
+
+    /** True when scoreVectorized() really uses the Vector API kernel. */
+    public static boolean isVectorKernelAvailable() {
+        return VectorKernel.INSTANCE != SCALAR_KERNEL;
+    }
+
+    /** The plain rolling-row kernel of score(). */
+    static final ScoreKernel SCALAR_KERNEL = new ScoreKernel() {
+        public int score(byte[] s1, byte[] s2, ScoringModel scoring) {
+            int[] row = new int[s2.length + 1];
+            int[] x = scoring.isLinear() ? null : new int[s2.length + 1];
+            return NeedlemanWunsch.score(s1, s2, scoring, row, x);
+        }
+    };
+
+    /**
+     * Picks the Vector API kernel the first time it is needed. The class is
+     * looked up by name so this file compiles without the incubator module.
+     */
+    private static class VectorKernel {
+        static final ScoreKernel INSTANCE = load();
+
+        private static ScoreKernel load() {
+            try {
+                return (ScoreKernel) Class.forName("VectorScorer").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return SCALAR_KERNEL;
+            }
+        }
+    }
+
+    /**
+     * Score-only variant of align() for callers that just read
+     * AlignmentResult.score: aligned strings, matrix and path are null.
+     */
+    public AlignmentResult scoreOnly() {
+        return new AlignmentResult(null, null, score(), null, null, null, 0, code1.length, 0, code2.length);
+    }
+
+    /**
+     * Banded global alignment: only cells within k of the main diagonal
+     * (|j - i| <= k) are computed. The band is then checked against an upper
+     * bound on the score of any path that leaves it (such a path needs at
+     * least 2(k+1) - |m-n| gaps); while the banded score does not reach that
+     * bound k is doubled and the band recomputed. The result is therefore
+     * always optimal, with the same score as align().
+     *
+     * The returned AlignmentResult has the aligned strings, score and path
+     * but no matrix (null). Affine models, and bands that grow to cover the
+     * whole matrix, use align() instead.
+     */
+    public AlignmentResult alignBanded(int k) {
+        if (!scoring.isLinear()) return align();
+
+        int m = code1.length;
+        int n = code2.length;
+        k = Math.max(Math.max(k, 1), Math.abs(m - n));
+
+        while (k < Math.max(m, n)) {
+            Metrics.Timer timer = Metrics.start("alignBanded", "fill");
+            int[][] band = fillBand(k);
+            timer.stop((long) (m + 1) * (2 * k + 1));
+            int score = band[m][n - m + k];
+            if (score >= outsideBandBound(k)) {
+                timer = Metrics.start("alignBanded", "traceback");
+                AlignmentResult res = tracebackBand(band, k);
+                timer.stop(0);
+                return res;
+            }
+            k = (int) Math.min(2L * k, Integer.MAX_VALUE);
+        }
+        return align();
+    }
+
+    /**
+     * Best score any path leaving the band |j - i| <= k could reach.
+     */
+    private long outsideBandBound(int k) {
+        int m = code1.length;
+        int n = code2.length;
+        long minGaps = 2L * (k + 1) - Math.abs(m - n);
+        if (minGaps > m + n) return Long.MIN_VALUE;          // no such path
+        int maxSub = scoring.maxScore();
+        if (2L * gap > maxSub) return Long.MAX_VALUE;       // extra gaps could pay off: no useful bound
+        long diagonals = (m + n - minGaps) / 2;
+        return diagonals * maxSub + minGaps * gap;
+    }
+
+    /**
+     * Fill the band |j - i| <= k. Row i of the result holds column j at
+     * index j - i + k; cells outside the band or the matrix stay at a large
+     * negative value.
+     */
+    private int[][] fillBand(int k) {
+        int m = code1.length;
+        int n = code2.length;
+        int width = 2 * k + 1;
+        int minusInf = Integer.MIN_VALUE / 2;
+
+        int[][] band = new int[m + 1][width];
+        for (int[] r : band) java.util.Arrays.fill(r, minusInf);
+
+        for (int j = 0; j <= Math.min(n, k); j++) band[0][j + k] = j * gap;
+
+        for (int i = 1; i <= m; i++) {
+            int[] sub = scoring.row(code1[i - 1]);
+            int[] prev = band[i - 1];
+            int[] cur = band[i];
+            int jLo = Math.max(0, i - k);
+            int jHi = Math.min(n, i + k);
+            if (jLo == 0) {
+                cur[k - i] = i * gap;
+                jLo = 1;
+            }
+            for (int j = jLo; j <= jHi; j++) {
+                int b = j - i + k;
+                int diag = prev[b] + sub[code2[j - 1]];
+                int up = (b + 1 < width) ? prev[b + 1] + gap : minusInf;
+                int left = (b > 0) ? cur[b - 1] + gap : minusInf;
+                cur[b] = Math.max(diag, Math.max(up, left));
+            }
+        }
+        return band;
+    }
+
+    /**
+     * Traceback through a band from fillBand(), with the same move
+     * preference as align(): diagonal, up, left.
+     */
+    private AlignmentResult tracebackBand(int[][] band, int k) {
+        int width = 2 * k + 1;
+        StringBuilder a1 = new StringBuilder();
+        StringBuilder a2 = new StringBuilder();
+        java.util.List<int[]> path = new java.util.ArrayList<>();
+
+        int i = code1.length;
+        int j = code2.length;
+        while (i > 0 || j > 0) {
+            path.add(new int[]{i, j});
+            int b = j - i + k;
+            int here = band[i][b];
+            if (i > 0 && j > 0 && here == band[i - 1][b] + scoring.score(code1[i - 1], code2[j - 1])) {
+                a1.append(seq1.charAt(i - 1));
+                a2.append(seq2.charAt(j - 1));
+                i--; j--;
+            } else if (i > 0 && (j == 0 || (b + 1 < width && here == band[i - 1][b + 1] + gap))) {
+                a1.append(seq1.charAt(i - 1));
+                a2.append('-');
+                i--;
+            } else {
+                a1.append('-');
+                a2.append(seq2.charAt(j - 1));
+                j--;
+            }
+        }
+        path.add(new int[]{0, 0});
+        java.util.Collections.reverse(path);
+
+        int score = band[code1.length][code2.length - code1.length + k];
+        return new AlignmentResult(a1.reverse().toString(), a2.reverse().toString(), score, null, path);
+    }
+
+    /**
+     * Cigar operations. Each cigar entry is (length << 4) | op, in order
+     * from the start of the alignment: M = aligned pair (match or
+     * mismatch), I = residue of seq1 against a gap, D = residue of seq2
+     * against a gap.
+     */
+    public static final int CIGAR_MATCH = 0, CIGAR_INSERT = 1, CIGAR_DELETE = 2;
+
+    private static final int MOVE_DIAG = 0, MOVE_UP = 1, MOVE_LEFT = 2;
+
+    /**
+     * Memory-light version of align(). The fill keeps a single rolling score
+     * row and records, for every cell, the traceback move as a 2-bit code
+     * packed 32 to a long, about 16x less than the int matrix. The path is
+     * returned as a cigar; AlignmentResult.path() builds the coordinate
+     * list from it only when asked. Moves follow the same preference as
+     * align() (diagonal, up, left), so the alignment is the same one.
+     *
+     * matrix and tracebackPath are null. Affine models need more than one
+     * move per cell and are aligned with align() and converted.
+     */
+    public AlignmentResult alignCompact() {
+        if (!scoring.isLinear()) {
+            AlignmentResult full = align();
+            return new AlignmentResult(full.alignedSeq1, full.alignedSeq2, full.score, null, null,
+                    cigarOf(full.alignedSeq1, full.alignedSeq2));
+        }
+
+        int m = code1.length;
+        int n = code2.length;
+        Metrics.Timer timer = Metrics.start("alignCompact", "fill");
+        long[] moves = new long[(int) (((long) m * n + 31) >>> 5)];
+
+        int[] row = new int[n + 1];
+        for (int j = 0; j <= n; j++) row[j] = j * gap;
+        long cell = 0;
+        for (int i = 1; i <= m; i++) {
+            int[] sub = scoring.row(code1[i - 1]);
+            int diagPrev = row[0];
+            row[0] = i * gap;
+            for (int j = 1; j <= n; j++, cell++) {
+                int diag = diagPrev + sub[code2[j - 1]];
+                int up = row[j] + gap;
+                int left = row[j - 1] + gap;
+                diagPrev = row[j];
+
+                int best = Math.max(diag, Math.max(up, left));
+                long move = (best == diag) ? MOVE_DIAG : (best == up) ? MOVE_UP : MOVE_LEFT;
+                moves[(int) (cell >>> 5)] |= move << ((cell & 31) << 1);
+                row[j] = best;
+            }
+        }
+        int score = row[n];
+        timer.stop(cells());
+        timer = Metrics.start("alignCompact", "traceback");
+
+        // traceback, collecting runs back to front
+        int[] runs = new int[16];
+        int count = 0;
+        StringBuilder a1 = new StringBuilder(m + n);
+        StringBuilder a2 = new StringBuilder(m + n);
+        int i = m, j = n;
+        while (i > 0 || j > 0) {
+            int op;
+            if (i == 0) {
+                op = CIGAR_DELETE;
+            } else if (j == 0) {
+                op = CIGAR_INSERT;
+            } else {
+                long c = (long) (i - 1) * n + (j - 1);
+                int move = (int) (moves[(int) (c >>> 5)] >>> ((c & 31) << 1)) & 3;
+                op = (move == MOVE_DIAG) ? CIGAR_MATCH : (move == MOVE_UP) ? CIGAR_INSERT : CIGAR_DELETE;
+            }
+
+            if (op != CIGAR_DELETE) a1.append(seq1.charAt(--i)); else a1.append('-');
+            if (op != CIGAR_INSERT) a2.append(seq2.charAt(--j)); else a2.append('-');
+
+            if (count > 0 && (runs[count - 1] & 0xF) == op) {
+                runs[count - 1] += 1 << 4;
+            } else {
+                if (count == runs.length) runs = java.util.Arrays.copyOf(runs, count * 2);
+                runs[count++] = (1 << 4) | op;
+            }
+        }
+
+        int[] cigar = new int[count];
+        for (int k = 0; k < count; k++) cigar[k] = runs[count - 1 - k];
+        timer.stop(0);
+        return new AlignmentResult(a1.reverse().toString(), a2.reverse().toString(), score, null, null, cigar);
+    }
+
+    /**
+     * Cigar of an alignment given as two gapped strings.
+     */
+    static int[] cigarOf(String a1, String a2) {
+        int[] runs = new int[16];
+        int count = 0;
+        for (int k = 0; k < a1.length(); k++) {
+            int op = (a2.charAt(k) == '-') ? CIGAR_INSERT : (a1.charAt(k) == '-') ? CIGAR_DELETE : CIGAR_MATCH;
+            if (count > 0 && (runs[count - 1] & 0xF) == op) {
+                runs[count - 1] += 1 << 4;
+            } else {
+                if (count == runs.length) runs = java.util.Arrays.copyOf(runs, count * 2);
+                runs[count++] = (1 << 4) | op;
+            }
+        }
+        return java.util.Arrays.copyOf(runs, count);
+    }
+
+    /**
+     * Compute an optimal global alignment in linear space using Hirschberg's
+     * divide-and-conquer scheme. Only a couple of score rows are kept at any
+     * time, so the returned AlignmentResult has no matrix (it is null).
+     * The score always equals the one from align(); when several alignments
+     * share that score the one returned may differ.
+     *
+     * Affine gap models use Myers and Miller's version of the scheme, which
+     * also keeps the best score ending in a vertical gap so a gap crossing
+     * the middle row is only opened once.
+     */
+    public AlignmentResult alignLinearSpace() {
+        byte[] s = code1;
+        byte[] t = code2;
+        StringBuilder a1 = new StringBuilder(s.length + t.length);
+        StringBuilder a2 = new StringBuilder(s.length + t.length);
+
+        if (scoring.isLinear()) {
+            Metrics.Timer timer = Metrics.start("alignLinearSpace", "hirschberg");
+            int[] forward = new int[t.length + 1];
+            int[] reverse = new int[t.length + 1];
+            hirschberg(s, 0, s.length, t, 0, t.length, a1, a2, forward, reverse);
+            timer.stop(cells());
+        } else {
+            Metrics.Timer timer = Metrics.start("alignLinearSpace", "myersMiller");
+            int[][] rows = new int[4][t.length + 1];
+            int open = scoring.gapOpen();
+            myersMiller(s, 0, s.length, t, 0, t.length, open, open, a1, a2, rows);
+            timer.stop(cells());
+        }
+
+        // rebuild score and path (origin -> end) from the aligned columns
+        java.util.List<int[]> path = new java.util.ArrayList<>(a1.length() + 1);
+        int i = 0, j = 0, score = 0;
+        char last = 'M';    // column before: 'M' residue pair, 'D' gap in a2, 'I' gap in a1
+        path.add(new int[]{0, 0});
+        for (int k = 0; k < a1.length(); k++) {
+            char c1 = a1.charAt(k);
+            char c2 = a2.charAt(k);
+            if (c1 == '-') {
+                score += (last == 'I') ? scoring.gapExtend() : scoring.gapOpen();
+                last = 'I';
+                j++;
+            } else if (c2 == '-') {
+                score += (last == 'D') ? scoring.gapExtend() : scoring.gapOpen();
+                last = 'D';
+                i++;
+            } else {
+                score += scoring.score(s[i], t[j]);
+                last = 'M';
+                i++; j++;
+            }
+            path.add(new int[]{i, j});
+        }
+
+        return new AlignmentResult(a1.toString(), a2.toString(), score, null, path);
+    }
+
+    /**
+     * Align s[i0,i1) against t[j0,j1) and append the columns to a1/a2.
+     * forward/reverse are scratch rows of at least (j1 - j0 + 1) entries.
+     */
+    private void hirschberg(byte[] s, int i0, int i1, byte[] t, int j0, int j1,
+                            StringBuilder a1, StringBuilder a2, int[] forward, int[] reverse) {
+        if (i1 - i0 <= 1 || j1 - j0 <= 1) {
+            alignSegment(s, i0, i1, t, j0, j1, a1, a2);
+            return;
+        }
+
+        int mid = (i0 + i1) >>> 1;
+        int width = j1 - j0;
+
+        // last row of the top half (forwards) and of the bottom half (backwards)
+        scoreRow(scoring, s, i0, mid, t, j0, j1, false, forward);
+        scoreRow(scoring, s, mid, i1, t, j0, j1, true, reverse);
+
+        int split = 0;
+        int best = Integer.MIN_VALUE;
+        for (int k = 0; k <= width; k++) {
+            int v = forward[k] + reverse[width - k];
+            if (v > best) {
+                best = v;
+                split = k;
+            }
+        }
+
+        hirschberg(s, i0, mid, t, j0, j0 + split, a1, a2, forward, reverse);
+        hirschberg(s, mid, i1, t, j0 + split, j1, a1, a2, forward, reverse);
+    }
+
+    /**
+     * Fill row[0..j1-j0] with the last DP row of s[i0,i1) against t[j0,j1)
+     * using a single rolling row. With reverse set both segments are read
+     * back to front, which gives the scores of the suffixes instead.
+     */
+    private static void scoreRow(ScoringModel scoring, byte[] s, int i0, int i1, byte[] t, int j0, int j1,
+                                 boolean reverse, int[] row) {
+        int gap = scoring.gapExtend();
+        int cols = j1 - j0;
+        for (int j = 0; j <= cols; j++) row[j] = j * gap;
+
+        for (int i = 1; i <= i1 - i0; i++) {
+            int[] sub = scoring.row(reverse ? s[i1 - i] : s[i0 + i - 1]);
+            int diagPrev = row[0];
+            row[0] = i * gap;
+            for (int j = 1; j <= cols; j++) {
+                int c2 = reverse ? t[j1 - j] : t[j0 + j - 1];
+                int diag = diagPrev + sub[c2];
+                int up = row[j] + gap;
+                int left = row[j - 1] + gap;
+                diagPrev = row[j];
+                row[j] = Math.max(diag, Math.max(up, left));
+            }
+        }
+    }
+
+    /**
+     * Base case of hirschberg(): one of the segments has at most one
+     * residue, so the DP has at most two rows or two columns and only the
+     * second one is kept (O(length) memory however long the other side
+     * is). The traceback has the same move preference as align():
+     * diagonal, up, left.
+     */
+    private void alignSegment(byte[] s, int i0, int i1, byte[] t, int j0, int j1,
+                              StringBuilder a1, StringBuilder a2) {
+        int m = i1 - i0;
+        int n = j1 - j0;
+        StringBuilder r1 = new StringBuilder(m + n);
+        StringBuilder r2 = new StringBuilder(m + n);
+        int i = m, j = n;
+
+        if (m == 1) {
+            // row 0 is j * gap; row 1 is kept in `row`
+            int[] row = new int[n + 1];
+            row[0] = gap;
+            for (int k = 1; k <= n; k++) {
+                int diag = (k - 1) * gap + scoring.score(s[i0], t[j0 + k - 1]);
+                row[k] = Math.max(diag, Math.max(k * gap + gap, row[k - 1] + gap));
+            }
+            while (i > 0 && j > 0) {
+                if (row[j] == (j - 1) * gap + scoring.score(s[i0], t[j0 + j - 1])) {
+                    r1.append(seq1.charAt(i0));
+                    r2.append(seq2.charAt(j0 + j - 1));
+                    i--; j--;
+                } else if (row[j] == j * gap + gap) {
+                    r1.append(seq1.charAt(i0));
+                    r2.append('-');
+                    i--;
+                } else {
+                    r1.append('-');
+                    r2.append(seq2.charAt(j0 + j - 1));
+                    j--;
+                }
+            }
+        } else if (n == 1) {
+            // column 0 is i * gap; column 1 is kept in `col`
+            int[] col = new int[m + 1];
+            col[0] = gap;
+            for (int k = 1; k <= m; k++) {
+                int diag = (k - 1) * gap + scoring.score(s[i0 + k - 1], t[j0]);
+                col[k] = Math.max(diag, Math.max(col[k - 1] + gap, k * gap + gap));
+            }
+            while (i > 0 && j > 0) {
+                if (col[i] == (i - 1) * gap + scoring.score(s[i0 + i - 1], t[j0])) {
+                    r1.append(seq1.charAt(i0 + i - 1));
+                    r2.append(seq2.charAt(j0));
+                    i--; j--;
+                } else if (col[i] == col[i - 1] + gap) {
+                    r1.append(seq1.charAt(i0 + i - 1));
+                    r2.append('-');
+                    i--;
+                } else {
+                    r1.append('-');
+                    r2.append(seq2.charAt(j0));
+                    j--;
+                }
+            }
+        } else if (m > 1 && n > 1) {
+            throw new IllegalStateException("alignSegment needs a side of at most one residue");
+        }
+
+        // what is left of either side is all gaps
+        for (; i > 0; i--) {
+            r1.append(seq1.charAt(i0 + i - 1));
+            r2.append('-');
+        }
+        for (; j > 0; j--) {
+            r1.append('-');
+            r2.append(seq2.charAt(j0 + j - 1));
+        }
+        a1.append(r1.reverse());
+        a2.append(r2.reverse());
+    }
+
+    /**
+     * Affine version of hirschberg(): align s[i0,i1) against t[j0,j1) and
+     * append the columns to a1/a2. top/bottom score the first position of
+     * a vertical gap touching the top-left or bottom-right corner: gapOpen,
+     * or gapExtend when the gap carries on from the neighbouring segment.
+     * rows holds four scratch rows of at least (j1 - j0 + 1) entries.
+     */
+    private void myersMiller(byte[] s, int i0, int i1, byte[] t, int j0, int j1, int top, int bottom,
+                             StringBuilder a1, StringBuilder a2, int[][] rows) {
+        if (i1 - i0 <= 1 || j1 == j0) {
+            alignSegmentAffine(s, i0, i1, t, j0, j1, top, bottom, a1, a2);
+            return;
+        }
+
+        int mid = (i0 + i1) >>> 1;
+        int width = j1 - j0;
+        int[] h = rows[0], d = rows[1], rh = rows[2], rd = rows[3];
+
+        // last rows of the top half (forwards) and of the bottom half (backwards)
+        scoreRowAffine(scoring, s, i0, mid, t, j0, j1, false, top, h, d);
+        scoreRowAffine(scoring, s, mid, i1, t, j0, j1, true, bottom, rh, rd);
+
+        // either the path crosses the middle at (mid, split), or a vertical
+        // gap runs through it in column split and is only opened once
+        int split = 0;
+        boolean inGap = false;
+        int best = Integer.MIN_VALUE;
+        int merge = scoring.gapExtend() - scoring.gapOpen();
+        for (int k = 0; k <= width; k++) {
+            int v = h[k] + rh[width - k];
+            if (v > best) {
+                best = v;
+                split = k;
+                inGap = false;
+            }
+            v = d[k] + rd[width - k] + merge;
+            if (v > best) {
+                best = v;
+                split = k;
+                inGap = true;
+            }
+        }
 
-        return new AlignmentResult(aligned1, aligned2, score, matrix, path);
+        int open = scoring.gapOpen(), extend = scoring.gapExtend();
+        if (!inGap) {
+            myersMiller(s, i0, mid, t, j0, j0 + split, top, open, a1, a2, rows);
+            myersMiller(s, mid, i1, t, j0 + split, j1, open, bottom, a1, a2, rows);
+        } else {
+            myersMiller(s, i0, mid - 1, t, j0, j0 + split, top, extend, a1, a2, rows);
+            a1.append(seq1, mid - 1, mid + 1);
+            a2.append("--");
+            myersMiller(s, mid + 1, i1, t, j0 + split, j1, extend, bottom, a1, a2, rows);
+        }
+    }
+
+    /**
+     * Affine version of scoreRow(): fill h[0..j1-j0] with the last row of
+     * Gotoh's H matrix for s[i0,i1) against t[j0,j1), and d with the best
+     * scores that end in a vertical gap. corner scores the first position
+     * of a vertical gap down column 0 (see myersMiller()).
+     */
+    private static void scoreRowAffine(ScoringModel scoring, byte[] s, int i0, int i1, byte[] t, int j0, int j1,
+                                       boolean reverse, int corner, int[] h, int[] d) {
+        int open = scoring.gapOpen();
+        int extend = scoring.gapExtend();
+        int minusInf = Integer.MIN_VALUE / 4;
+        int cols = j1 - j0;
+
+        h[0] = 0;
+        d[0] = minusInf;
+        for (int j = 1; j <= cols; j++) {
+            h[j] = open + (j - 1) * extend;
+            d[j] = minusInf;
+        }
+        for (int i = 1; i <= i1 - i0; i++) {
+            int[] sub = scoring.row(reverse ? s[i1 - i] : s[i0 + i - 1]);
+            int diagPrev = h[0];
+            d[0] = corner + (i - 1) * extend;
+            h[0] = d[0];
+            int yLeft = minusInf;
+            for (int j = 1; j <= cols; j++) {
+                int c2 = reverse ? t[j1 - j] : t[j0 + j - 1];
+                int dv = Math.max(h[j] + open, d[j] + extend);
+                int yv = Math.max(h[j - 1] + open, yLeft + extend);
+                int diag = diagPrev + sub[c2];
+                diagPrev = h[j];
+                d[j] = dv;
+                yLeft = yv;
+                h[j] = Math.max(diag, Math.max(dv, yv));
+            }
+        }
+    }
+
+    /**
+     * Base case of myersMiller(): s[i0,i1) has at most one residue, or
+     * t[j0,j1) is empty. The single residue is either paired with the best
+     * residue of t, or deleted next to the corner whose gap is cheaper.
+     */
+    private void alignSegmentAffine(byte[] s, int i0, int i1, byte[] t, int j0, int j1, int top, int bottom,
+                                    StringBuilder a1, StringBuilder a2) {
+        int n = j1 - j0;
+        if (i1 - i0 != 1 || n == 0) {
+            for (int i = i0; i < i1; i++) {
+                a1.append(seq1.charAt(i));
+                a2.append('-');
+            }
+            for (int j = j0; j < j1; j++) {
+                a1.append('-');
+                a2.append(seq2.charAt(j));
+            }
+            return;
+        }
+
+        int open = scoring.gapOpen(), extend = scoring.gapExtend();
+        int best = Math.max(top, bottom) + open + (n - 1) * extend;    // delete s[i0], insert all of t
+        int pair = -1;
+        for (int k = 0; k < n; k++) {
+            int before = (k == 0) ? 0 : open + (k - 1) * extend;
+            int after = (k == n - 1) ? 0 : open + (n - k - 2) * extend;
+            int v = before + scoring.score(s[i0], t[j0 + k]) + after;
+            if (v >= best) {
+                best = v;
+                pair = k;
+            }
+        }
+
+        if (pair < 0 && top >= bottom) {
+            a1.append(seq1.charAt(i0));
+            a2.append('-');
+        }
+        for (int k = 0; k < n; k++) {
+            a1.append(k == pair ? seq1.charAt(i0) : '-');
+            a2.append(seq2.charAt(j0 + k));
+        }
+        if (pair < 0 && top < bottom) {
+            a1.append(seq1.charAt(i0));
+            a2.append('-');
+        }
     }
 
     /**
@@ -114,14 +1187,99 @@ public class NeedlemanWunsch {
         public final String alignedSeq2;
         public final int score;
         public final int[][] matrix;
+        /**
+         * The DP matrix in whatever storage it was filled in (the same
+         * cells as matrix when that is an int[][]), or null.
+         */
+        public final ScoreMatrix scores;
         public final java.util.List<int[]> tracebackPath;
+        /** Run-length encoded path (see CIGAR_MATCH), or null. */
+        public final int[] cigar;
+        /**
+         * The aligned residues are seq1[start1, end1) and seq2[start2, end2)
+         * (also the matrix cells where the path starts and ends). A global
+         * alignment covers both sequences.
+         */
+        public final int start1, end1, start2, end2;
+
+        private java.util.List<int[]> decodedPath;
 
         public AlignmentResult(String a1, String a2, int score, int[][] matrix, java.util.List<int[]> tracebackPath) {
+            this(a1, a2, score, matrix, tracebackPath, null);
+        }
+
+        /** A global alignment: both sequences from their first residue. */
+        public AlignmentResult(String a1, String a2, int score, int[][] matrix,
+                               java.util.List<int[]> tracebackPath, int[] cigar) {
+            this(a1, a2, score, matrix, tracebackPath, cigar, 0, residues(a1), 0, residues(a2));
+        }
+
+        public AlignmentResult(String a1, String a2, int score, int[][] matrix,
+                               java.util.List<int[]> tracebackPath, int[] cigar,
+                               int start1, int end1, int start2, int end2) {
+            this(a1, a2, score, matrix, matrix == null ? null : ScoreMatrix.wrap(matrix), tracebackPath, cigar,
+                    start1, end1, start2, end2);
+        }
+
+        /** A result whose matrix may be off the heap; matrix is only set for ScoreMatrix.Heap. */
+        public AlignmentResult(String a1, String a2, int score, ScoreMatrix scores,
+                               java.util.List<int[]> tracebackPath, int start1, int end1, int start2, int end2) {
+            this(a1, a2, score, scores instanceof ScoreMatrix.Heap ? ((ScoreMatrix.Heap) scores).array : null,
+                    scores, tracebackPath, null, start1, end1, start2, end2);
+        }
+
+        private AlignmentResult(String a1, String a2, int score, int[][] matrix, ScoreMatrix scores,
+                                java.util.List<int[]> tracebackPath, int[] cigar,
+                                int start1, int end1, int start2, int end2) {
             this.alignedSeq1 = a1;
             this.alignedSeq2 = a2;
             this.score = score;
             this.matrix = matrix;
+            this.scores = scores;
             this.tracebackPath = tracebackPath;
+            this.cigar = cigar;
+            this.start1 = start1;
+            this.end1 = end1;
+            this.start2 = start2;
+            this.end2 = end2;
+        }
+
+        private static int residues(String aligned) {
+            if (aligned == null) return 0;
+            int count = 0;
+            for (int k = 0; k < aligned.length(); k++) if (aligned.charAt(k) != '-') count++;
+            return count;
+        }
+
+        /**
+         * Traceback path (origin -> end). Uses tracebackPath when present,
+         * otherwise decodes the cigar once and keeps the list.
+         */
+        public synchronized java.util.List<int[]> path() {
+            if (tracebackPath != null || cigar == null) return tracebackPath;
+            if (decodedPath == null) {
+                java.util.List<int[]> p = new java.util.ArrayList<>();
+                int i = 0, j = 0;
+                p.add(new int[]{0, 0});
+                for (int run : cigar) {
+                    int op = run & 0xF;
+                    for (int k = run >>> 4; k > 0; k--) {
+                        if (op != CIGAR_DELETE) i++;
+                        if (op != CIGAR_INSERT) j++;
+                        p.add(new int[]{i, j});
+                    }
+                }
+                decodedPath = p;
+            }
+            return decodedPath;
+        }
+
+        /** The cigar as text, e.g. "12M1I7M2D4M". */
+        public String cigarString() {
+            if (cigar == null) return null;
+            StringBuilder sb = new StringBuilder();
+            for (int run : cigar) sb.append(run >>> 4).append("MID".charAt(run & 0xF));
+            return sb.toString();
         }
     }
 
@@ -131,56 +1289,97 @@ public class NeedlemanWunsch {
      */
     public String matrixToString(int[][] matrix) {
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format("     "));
-        for (int j = 0; j < seq2.length(); j++) sb.append(String.format(" %4c", seq2.charAt(j)));
-        sb.append('\n');
-        sb.append("-----");
-        for (int j = 0; j < matrix[0].length; j++) sb.append("----");
-        sb.append('\n');
-
-        for (int i = 0; i < matrix.length; i++) {
-            if (i == 0) sb.append("  | ");
-            else sb.append(String.format(" %2c | ", seq1.charAt(i - 1)));
-            for (int j = 0; j < matrix[0].length; j++) sb.append(String.format(" %3d", matrix[i][j]));
-            sb.append('\n');
+        try {
+            writeMatrix(matrix, sb);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);    // StringBuilder does not throw
         }
         return sb.toString();
     }
 
+    /**
+     * Stream the matrixToString() layout to `out` (a Writer, StringBuilder,
+     * ...) without building it in memory first. Numbers are formatted by
+     * hand, so a large matrix goes to a file about as fast as the disk
+     * takes it.
+     */
+    public void writeMatrix(int[][] matrix, Appendable out) throws java.io.IOException {
+        writeMatrix(ScoreMatrix.wrap(matrix), out);
+    }
+
+    /** writeMatrix() for a matrix in any storage, read one row at a time. */
+    public void writeMatrix(ScoreMatrix matrix, Appendable out) throws java.io.IOException {
+        TextBuffer tb = new TextBuffer(out);
+        int[] row = new int[matrix.cols()];
+        tb.append("     ");
+        for (int j = 0; j < seq2.length(); j++) tb.append(' ').pad(seq2.charAt(j), 4);
+        tb.append('\n');
+        tb.append("-----");
+        for (int j = 0; j < row.length; j++) tb.append("----");
+        tb.append('\n');
+
+        for (int i = 0; i < matrix.rows(); i++) {
+            if (i == 0) tb.append("  | ");
+            else tb.append(' ').pad(seq1.charAt(i - 1), 2).append(" | ");
+            matrix.getRow(i, row);
+            for (int j = 0; j < row.length; j++) tb.append(' ').pad(row[j], 3);
+            tb.append('\n');
+        }
+        tb.flush();
+    }
+
     public void printMatrix(int[][] matrix) {
-        int rows = matrix.length;
-        int cols = matrix[0].length;
+        java.io.Writer out = new java.io.OutputStreamWriter(System.out);
+        try {
+            printMatrix(matrix, out);
+            out.flush();
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The console layout of printMatrix() (wider columns, separator lines),
+     * streamed to `out`.
+     */
+    public void printMatrix(int[][] matrix, Appendable out) throws java.io.IOException {
+        printMatrix(ScoreMatrix.wrap(matrix), out);
+    }
+
+    public void printMatrix(ScoreMatrix matrix, Appendable out) throws java.io.IOException {
+        TextBuffer tb = new TextBuffer(out);
+        String nl = System.lineSeparator();
+        int rows = matrix.rows();
+        int cols = matrix.cols();
+        int[] row = new int[cols];
 
         // Print top header
-        System.out.print("      ");
-        for (int j = 0; j < seq2.length(); j++)
-            System.out.printf("%4c", seq2.charAt(j));
-        System.out.println();
+        tb.append("      ");
+        for (int j = 0; j < seq2.length(); j++) tb.pad(seq2.charAt(j), 4);
+        tb.append(nl);
 
-        printLine(cols);
+        printLine(tb, cols, nl);
 
         // Print rows
         for (int i = 0; i < rows; i++) {
 
             // Row label
-            if (i == 0) System.out.print("   | ");
-            else        System.out.printf("%2c | ", seq1.charAt(i - 1));
+            if (i == 0) tb.append("   | ");
+            else        tb.pad(seq1.charAt(i - 1), 2).append(" | ");
 
             // Values
-            for (int j = 0; j < cols; j++) {
-                System.out.printf("%4d", matrix[i][j]);
-            }
-            System.out.println();
+            matrix.getRow(i, row);
+            for (int j = 0; j < cols; j++) tb.pad(row[j], 4);
+            tb.append(nl);
         }
 
-        printLine(cols);
+        printLine(tb, cols, nl);
+        tb.flush();
     }
 
-    private void printLine(int cols) {
-        System.out.print("----+-");
-        for (int i = 0; i < cols; i++) {
-            System.out.print("----");
-        }
-        System.out.println();
+    private void printLine(TextBuffer tb, int cols, String nl) throws java.io.IOException {
+        tb.append("----+-");
+        for (int i = 0; i < cols; i++) tb.append("----");
+        tb.append(nl);
     }
 }
@@ -0,0 +1,117 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics sink that sums the phases per (job, phase) and writes them in
+ * the Prometheus text format, optionally served on localhost:
+ *
+ *     bioinfo_phase_total{job="align",phase="fill"} 12
+ *     bioinfo_phase_seconds_total{job="align",phase="fill"} 3.41
+ *     bioinfo_phase_cells_total{job="align",phase="fill"} 4.8e9
+ *     bioinfo_queue_depth{queue="pipeline"} 16
+ *
+ * Everything is a counter except the queue depths and the GCUPS of the
+ * last run of each phase, so throughput over a window is
+ * rate(cells_total) / rate(seconds_total) / 1e9.
+ */
+public class PrometheusMetrics implements Metrics.Sink {
+
+    private static final class Phase {
+        final String labels;
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder cells = new LongAdder();
+        final LongAdder allocated = new LongAdder();
+        volatile double lastGcups;
+
+        Phase(String labels) {
+            this.labels = labels;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Phase> phases = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> queues = new ConcurrentHashMap<>();
+
+    public void phase(String job, String phase, long nanos, long cells, long allocatedBytes) {
+        Phase p = phases.get(job + '\0' + phase);
+        if (p == null) {
+            Phase created = new Phase("{job=\"" + escape(job) + "\",phase=\"" + escape(phase) + "\"}");
+            p = phases.putIfAbsent(job + '\0' + phase, created);
+            if (p == null) p = created;
+        }
+        p.count.increment();
+        p.nanos.add(nanos);
+        p.cells.add(cells);
+        p.allocated.add(allocatedBytes);
+        if (cells > 0 && nanos > 0) p.lastGcups = (double) cells / nanos;
+    }
+
+    public void queueDepth(String queue, int depth) {
+        queues.put(queue, depth);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /** All metrics in the Prometheus text exposition format (version 0.0.4). */
+    public void writeTo(Appendable out) throws IOException {
+        java.util.List<Phase> list = new java.util.ArrayList<>(phases.values());
+        list.sort(new java.util.Comparator<Phase>() {
+            public int compare(Phase a, Phase b) {
+                return a.labels.compareTo(b.labels);
+            }
+        });
+
+        out.append("# HELP bioinfo_phase_total Completed phases.\n# TYPE bioinfo_phase_total counter\n");
+        for (Phase p : list) out.append("bioinfo_phase_total").append(p.labels).append(' ').append(Long.toString(p.count.sum())).append('\n');
+        out.append("# HELP bioinfo_phase_seconds_total Wall time spent in the phase.\n# TYPE bioinfo_phase_seconds_total counter\n");
+        for (Phase p : list) out.append("bioinfo_phase_seconds_total").append(p.labels).append(' ').append(Double.toString(p.nanos.sum() / 1e9)).append('\n');
+        out.append("# HELP bioinfo_phase_cells_total DP or dot-plot cells computed.\n# TYPE bioinfo_phase_cells_total counter\n");
+        for (Phase p : list) out.append("bioinfo_phase_cells_total").append(p.labels).append(' ').append(Long.toString(p.cells.sum())).append('\n');
+        out.append("# HELP bioinfo_phase_allocated_bytes_total Bytes allocated by the thread running the phase.\n# TYPE bioinfo_phase_allocated_bytes_total counter\n");
+        for (Phase p : list) out.append("bioinfo_phase_allocated_bytes_total").append(p.labels).append(' ').append(Long.toString(p.allocated.sum())).append('\n');
+        out.append("# HELP bioinfo_phase_last_gcups Billions of cell updates per second in the latest run.\n# TYPE bioinfo_phase_last_gcups gauge\n");
+        for (Phase p : list) out.append("bioinfo_phase_last_gcups").append(p.labels).append(' ').append(Double.toString(p.lastGcups)).append('\n');
+
+        out.append("# HELP bioinfo_queue_depth Jobs waiting in a batch queue.\n# TYPE bioinfo_queue_depth gauge\n");
+        for (java.util.Map.Entry<String, Integer> q : new java.util.TreeMap<>(queues).entrySet())
+            out.append("bioinfo_queue_depth{queue=\"").append(escape(q.getKey())).append("\"} ").append(q.getValue().toString()).append('\n');
+    }
+
+    /**
+     * Serve writeTo() at http://127.0.0.1:port/metrics until the returned
+     * server is stopped. Only the loopback interface is bound.
+     */
+    public HttpServer serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", handler());
+        server.start();
+        return server;
+    }
+
+    /** Answers every request with writeTo(), to mount on an existing HttpServer. */
+    public HttpHandler handler() {
+        return new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                StringBuilder body = new StringBuilder();
+                writeTo(body);
+                byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * A score-only global alignment kernel on sequences encoded with
+ * ScoringModel.encodeAll(). Implementations must return exactly the value of
+ * NeedlemanWunsch.score() for the same input.
+ */
+public interface ScoreKernel {
+
+    int score(byte[] s1, byte[] s2, ScoringModel scoring);
+}
@@ -0,0 +1,82 @@
+/**
+ * Storage for a (rows x cols) DP matrix, so the fills, the traceback and
+ * the renderers do not depend on where the cells live: in int[][] rows on
+ * the heap (Heap) or in a memory-mapped file (MappedMatrix) for matrices
+ * larger than the heap.
+ *
+ * The fills work a row at a time: rowBuffer() gives the array to compute
+ * row i in (the row itself for Heap, so nothing is copied) and setRow()
+ * stores it. Single cells are read with get(), which the traceback and
+ * the views need only O(rows + cols) or O(visible) times.
+ */
+public interface ScoreMatrix {
+
+    int rows();
+
+    int cols();
+
+    int get(int i, int j);
+
+    /** Copies row i into dst[0, cols). */
+    void getRow(int i, int[] dst);
+
+    /** Stores src[0, cols) as row i. */
+    void setRow(int i, int[] src);
+
+    /**
+     * The array to fill row i in before handing it to setRow(): the row
+     * itself when the matrix keeps rows as arrays, otherwise `spare`
+     * (at least cols long).
+     */
+    int[] rowBuffer(int i, int[] spare);
+
+    /** Bytes the cells take in their storage. */
+    long bytes();
+
+    /** An int[rows][cols] matrix on the heap. */
+    static Heap onHeap(int rows, int cols) {
+        return new Heap(new int[rows][cols]);
+    }
+
+    /** View of an existing int[][] matrix (not copied). */
+    static Heap wrap(int[][] array) {
+        return new Heap(array);
+    }
+
+    /** The classic int[][] matrix. */
+    final class Heap implements ScoreMatrix {
+        public final int[][] array;
+
+        Heap(int[][] array) {
+            this.array = array;
+        }
+
+        public int rows() {
+            return array.length;
+        }
+
+        public int cols() {
+            return array.length == 0 ? 0 : array[0].length;
+        }
+
+        public int get(int i, int j) {
+            return array[i][j];
+        }
+
+        public void getRow(int i, int[] dst) {
+            System.arraycopy(array[i], 0, dst, 0, cols());
+        }
+
+        public void setRow(int i, int[] src) {
+            if (src != array[i]) System.arraycopy(src, 0, array[i], 0, cols());
+        }
+
+        public int[] rowBuffer(int i, int[] spare) {
+            return array[i];
+        }
+
+        public long bytes() {
+            return 4L * rows() * cols();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scoring used by NeedlemanWunsch: a substitution score for every pair of
+ * residues plus gap costs.
+ *
+ * Residues are encoded to small ints once (encode()), and substitution
+ * scores are then plain array lookups: row(a)[b]. Gaps are affine, a gap of
+ * length L scores gapOpen + (L - 1) * gapExtend. When both values are equal
+ * the model is linear and the aligner uses the simple single-matrix
+ * recurrence; otherwise it uses Gotoh's three-matrix recurrence.
+ */
+public class ScoringModel {
+
+    /** The scoring used throughout the project: match +1, mismatch -1, gap -1. */
+    public static final ScoringModel DEFAULT = simple(1, -1, -1);
+
+    private static final int ASCII = 128;
+
+    private final String name;
+    private final int[] code;          // char (< 128) -> residue index
+    private final int unknown;         // index used for any other char
+    private final int[][] matrix;      // substitution scores by residue index
+    private final int gapOpen, gapExtend;
+    private final boolean identity;    // simple match/mismatch model
+    private final int match, mismatch;
+    private int hash;                  // cached hashCode(), 0 until computed
+
+    private ScoringModel(String name, int[] code, int unknown, int[][] matrix,
+                         int gapOpen, int gapExtend, boolean identity, int match, int mismatch) {
+        this.name = name;
+        this.code = code;
+        this.unknown = unknown;
+        this.matrix = matrix;
+        this.gapOpen = gapOpen;
+        this.gapExtend = gapExtend;
+        this.identity = identity;
+        this.match = match;
+        this.mismatch = mismatch;
+    }
+
+    /**
+     * Match/mismatch scoring with a linear gap. Any two characters match
+     * when they are equal, as in the dot-plots; see encodeAll() for
+     * characters outside ASCII.
+     */
+    public static ScoringModel simple(int match, int mismatch, int gap) {
+        return simple(match, mismatch, gap, gap);
+    }
+
+    /**
+     * Match/mismatch scoring with affine gaps.
+     */
+    public static ScoringModel simple(int match, int mismatch, int gapOpen, int gapExtend) {
+        int[] code = new int[ASCII];
+        int[][] matrix = new int[ASCII][ASCII];
+        for (int a = 0; a < ASCII; a++) {
+            code[a] = a;
+            for (int b = 0; b < ASCII; b++) matrix[a][b] = (a == b) ? match : mismatch;
+        }
+        String name = "match=" + match + ",mismatch=" + mismatch;
+        return new ScoringModel(name, code, 0, matrix, gapOpen, gapExtend, true, match, mismatch);
+    }
+
+    /**
+     * Load a substitution matrix (BLOSUM62, PAM250, ...) in the usual NCBI
+     * text layout: '#' comment lines, a header line of residue letters, then
+     * one line per residue with its letter followed by the scores.
+     * Letters are case-insensitive; residues missing from the matrix are
+     * scored as 'X' (or '*') when the matrix has one.
+     */
+    public static ScoringModel load(String path, int gapOpen, int gapExtend) throws IOException {
+        try (Reader in = new FileReader(path)) {
+            return read(in, new java.io.File(path).getName(), gapOpen, gapExtend);
+        }
+    }
+
+    public static ScoringModel read(Reader source, String name, int gapOpen, int gapExtend) throws IOException {
+        BufferedReader in = new BufferedReader(source);
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) lines.add(line);
+        }
+        if (lines.isEmpty()) throw new IOException(name + ": no substitution matrix found");
+
+        String[] header = lines.get(0).split("\\s+");
+        int size = header.length;
+        int[] code = new int[ASCII];
+        java.util.Arrays.fill(code, -1);
+        for (int k = 0; k < size; k++) {
+            if (header[k].length() != 1) throw new IOException(name + ": bad residue '" + header[k] + "' in header");
+            char c = header[k].charAt(0);
+            code[Character.toUpperCase(c)] = k;
+            code[Character.toLowerCase(c)] = k;
+        }
+
+        int[][] matrix = new int[size][size];
+        boolean[] seen = new boolean[size];
+        for (int r = 1; r < lines.size(); r++) {
+            String[] parts = lines.get(r).split("\\s+");
+            if (parts.length != size + 1 || parts[0].length() != 1 || parts[0].charAt(0) >= ASCII)
+                throw new IOException(name + ": bad matrix line '" + lines.get(r) + "'");
+            int row = code[parts[0].charAt(0)];
+            if (row < 0) throw new IOException(name + ": residue '" + parts[0] + "' is not in the header");
+            try {
+                for (int k = 0; k < size; k++) matrix[row][k] = Integer.parseInt(parts[k + 1]);
+            } catch (NumberFormatException e) {
+                throw new IOException(name + ": bad score in line '" + lines.get(r) + "'", e);
+            }
+            seen[row] = true;
+        }
+        for (int k = 0; k < size; k++)
+            if (!seen[k]) throw new IOException(name + ": no row for residue '" + header[k] + "'");
+
+        int unknown = code['X'] >= 0 ? code['X'] : code['*'] >= 0 ? code['*'] : -1;
+        for (int c = 0; c < ASCII; c++) if (code[c] < 0) code[c] = unknown;
+        return new ScoringModel(name, code, unknown, matrix, gapOpen, gapExtend, false, 0, 0);
+    }
+
+    /**
+     * Encode a sequence to residue indices (row/column numbers of the
+     * substitution matrix).
+     */
+    public byte[] encode(String seq) {
+        byte[] out = new byte[seq.length()];
+        for (int k = 0; k < out.length; k++) {
+            char c = seq.charAt(k);
+            int idx = (c < ASCII) ? code[c] : unknown;
+            if (idx < 0)
+                throw new IllegalArgumentException("residue '" + c + "' is not scored by " + name);
+            out[k] = (byte) idx;
+        }
+        return out;
+    }
+
+    /**
+     * Encode sequences that are going to be scored against each other.
+     *
+     * encode() gives the simple models one code per ASCII character and a
+     * shared code for everything else, so on its own it would score 'é'
+     * against 'ü' as a match. Here every distinct character of `seqs`
+     * gets a code of its own instead: the ones outside ASCII take codes of
+     * ASCII characters that none of the sequences uses, which is harmless
+     * since a simple model only compares codes for equality. Substitution
+     * matrix models score such characters as 'X' either way.
+     *
+     * @throws IllegalArgumentException if the sequences use more than 128
+     *         distinct characters under a simple model
+     */
+    public byte[][] encodeAll(String... seqs) {
+        byte[][] out = new byte[seqs.length][];
+        boolean wide = false;
+        for (int k = 0; k < seqs.length; k++) {
+            out[k] = encode(seqs[k]);
+            for (int p = 0; p < seqs[k].length(); p++) if (seqs[k].charAt(p) >= ASCII) wide = true;
+        }
+        if (!identity || !wide) return out;
+
+        boolean[] used = new boolean[ASCII];
+        for (String seq : seqs)
+            for (int p = 0; p < seq.length(); p++) if (seq.charAt(p) < ASCII) used[seq.charAt(p)] = true;
+        java.util.Map<Character, Integer> extra = new java.util.HashMap<>();
+        int free = 0;
+        for (int k = 0; k < seqs.length; k++) {
+            String seq = seqs[k];
+            for (int p = 0; p < seq.length(); p++) {
+                char c = seq.charAt(p);
+                if (c < ASCII) continue;
+                Integer idx = extra.get(c);
+                if (idx == null) {
+                    while (free < ASCII && used[free]) free++;
+                    if (free == ASCII)
+                        throw new IllegalArgumentException("more than " + ASCII + " distinct residues for " + name);
+                    idx = free++;
+                    extra.put(c, idx);
+                }
+                out[k][p] = (byte) (int) idx;
+            }
+        }
+        return out;
+    }
+
+    /** Substitution scores of residue index a against every residue index. */
+    public int[] row(int a) {
+        return matrix[a];
+    }
+
+    public int score(int a, int b) {
+        return matrix[a][b];
+    }
+
+    /** Number of residue codes (size of the substitution matrix). */
+    public int size() {
+        return matrix.length;
+    }
+
+    /**
+     * True for simple match/mismatch models, whose substitution score is
+     * just matchScore() or mismatchScore() depending on code equality.
+     */
+    public boolean isIdentity() {
+        return identity;
+    }
+
+    public int matchScore() {
+        return match;
+    }
+
+    public int mismatchScore() {
+        return mismatch;
+    }
+
+    /** Highest substitution score in the matrix. */
+    public int maxScore() {
+        int best = Integer.MIN_VALUE;
+        for (int[] r : matrix) for (int v : r) best = Math.max(best, v);
+        return best;
+    }
+
+    public int gapOpen() {
+        return gapOpen;
+    }
+
+    public int gapExtend() {
+        return gapExtend;
+    }
+
+    /** True when every gap position costs the same (gapOpen == gapExtend). */
+    public boolean isLinear() {
+        return gapOpen == gapExtend;
+    }
+
+    /** True for the project's default +1/-1/-1 scheme. */
+    public boolean isDefaultScheme() {
+        return identity && match == 1 && mismatch == -1 && gapOpen == -1 && gapExtend == -1;
+    }
+
+    /**
+     * Two models are equal when they score every residue pair and every gap
+     * the same way; the name is not compared.
+     */
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScoringModel)) return false;
+        ScoringModel other = (ScoringModel) o;
+        return gapOpen == other.gapOpen && gapExtend == other.gapExtend && unknown == other.unknown
+                && java.util.Arrays.equals(code, other.code) && java.util.Arrays.deepEquals(matrix, other.matrix);
+    }
+
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 31 * gapOpen + gapExtend;
+            h = 31 * h + java.util.Arrays.hashCode(code);
+            h = 31 * h + java.util.Arrays.deepHashCode(matrix);
+            hash = h;
+        }
+        return h;
+    }
+
+    public String toString() {
+        return name + ",gapOpen=" + gapOpen + ",gapExtend=" + gapExtend;
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Seed-and-extend global alignment for long, similar sequences.
+ *
+ * 1. Seeds: the k-mer hits of the sparse dot-plot (DotPlot.createSparseDotPlot)
+ *    that lie on the same diagonal and overlap are merged into exact-match
+ *    runs. k-mers occurring more than MAX_OCCURRENCES times in seq2 are
+ *    ignored, so repeats do not flood the chain.
+ * 2. Chain: the heaviest chain of runs that increases in both sequences
+ *    (weight = matched residues) is picked with a Fenwick tree over seq2
+ *    positions, in O(r log n) for r runs. These runs are the anchors.
+ * 3. Extend: the pieces between consecutive anchors, and before the first
+ *    and after the last, are aligned globally with NeedlemanWunsch as
+ *    independent sub-problems on a ForkJoinPool.
+ * 4. The anchors and sub-alignments are stitched into one global
+ *    AlignmentResult (cigar, no matrix).
+ *
+ * The result is a valid global alignment whose score is the sum of its
+ * parts, but it is only optimal among alignments that go through the
+ * anchors. Without any anchors it is a plain global alignment.
+ */
+public class SeedExtend {
+
+    /** k-mers found more often than this in seq2 are not used as seeds. */
+    static final int MAX_OCCURRENCES = 32;
+
+    /** Pieces up to this many cells use align(); larger ones alignLinearSpace(). */
+    private static final long FULL_MATRIX_CELLS = 1 << 22;
+
+    private final String seq1, seq2;
+    private final ScoringModel scoring;
+    private final int k;
+    private final ForkJoinPool pool;
+
+    public SeedExtend(String seq1, String seq2, ScoringModel scoring, int k, ForkJoinPool pool) {
+        this.seq1 = seq1;
+        this.seq2 = seq2;
+        this.scoring = scoring;
+        this.k = k;
+        this.pool = pool;
+    }
+
+    /**
+     * Anchors as {i, j, length} triples, in increasing order: seq1[i, i+length)
+     * equals seq2[j, j+length).
+     */
+    public int[][] anchors() {
+        long[] hits = new DotPlot(seq1, seq2).createSparseDotPlot(k);
+        int[][] runs = runs(hits);
+        return chain(runs);
+    }
+
+    public NeedlemanWunsch.AlignmentResult align() {
+        Metrics.Timer timer = Metrics.start("alignSeeded", "seeds");
+        int[][] anchors = anchors();
+        timer.stop(0);
+        int pieces = anchors.length + 1;
+
+        // piece p lies between anchor p-1 and anchor p
+        int[] i0 = new int[pieces], i1 = new int[pieces], j0 = new int[pieces], j1 = new int[pieces];
+        for (int p = 0; p < pieces; p++) {
+            i0[p] = (p == 0) ? 0 : anchors[p - 1][0] + anchors[p - 1][2];
+            j0[p] = (p == 0) ? 0 : anchors[p - 1][1] + anchors[p - 1][2];
+            i1[p] = (p == anchors.length) ? seq1.length() : anchors[p][0];
+            j1[p] = (p == anchors.length) ? seq2.length() : anchors[p][1];
+        }
+        NeedlemanWunsch.AlignmentResult[] parts = new NeedlemanWunsch.AlignmentResult[pieces];
+        timer = Metrics.start("alignSeeded", "extend");
+        pool.invoke(new PieceTask(i0, i1, j0, j1, parts, 0, pieces));
+        long cells = 0;
+        for (int p = 0; p < pieces; p++) cells += (long) (i1[p] - i0[p] + 1) * (j1[p] - j0[p] + 1);
+        timer.stop(cells);
+
+        StringBuilder a1 = new StringBuilder(seq1.length() + seq2.length() / 8);
+        StringBuilder a2 = new StringBuilder(a1.capacity());
+        int score = 0;
+        for (int p = 0; p < pieces; p++) {
+            a1.append(parts[p].alignedSeq1);
+            a2.append(parts[p].alignedSeq2);
+            score += parts[p].score;
+            if (p < anchors.length) {
+                int i = anchors[p][0], j = anchors[p][1], len = anchors[p][2];
+                a1.append(seq1, i, i + len);
+                a2.append(seq2, j, j + len);
+                byte[] run = scoring.encode(seq1.substring(i, i + len));
+                for (byte c : run) score += scoring.score(c, c);
+            }
+        }
+        String aligned1 = a1.toString();
+        String aligned2 = a2.toString();
+        return new NeedlemanWunsch.AlignmentResult(aligned1, aligned2, score, null, null,
+                NeedlemanWunsch.cigarOf(aligned1, aligned2));
+    }
+
+    /**
+     * Merge hits (i << 32 | j, sorted by i then j) into maximal runs of
+     * consecutive hits on one diagonal, as {i, j, length} in residues.
+     */
+    private int[][] runs(long[] hits) {
+        // drop repetitive k-mers: a query position with too many hits
+        int kept = 0;
+        for (int a = 0; a < hits.length; ) {
+            int b = a;
+            while (b < hits.length && KmerIndex.hitRow(hits[b]) == KmerIndex.hitRow(hits[a])) b++;
+            if (b - a <= MAX_OCCURRENCES) {
+                System.arraycopy(hits, a, hits, kept, b - a);
+                kept += b - a;
+            }
+            a = b;
+        }
+
+        // order by diagonal (j - i), then i, so each run is contiguous
+        long[] byDiagonal = new long[kept];
+        for (int h = 0; h < kept; h++) {
+            int i = KmerIndex.hitRow(hits[h]), j = KmerIndex.hitCol(hits[h]);
+            byDiagonal[h] = ((long) (j - i + seq1.length()) << 32) | i;
+        }
+        java.util.Arrays.sort(byDiagonal);
+
+        int[][] out = new int[16][];
+        int count = 0;
+        for (int a = 0; a < kept; ) {
+            long diagonal = byDiagonal[a] >>> 32;
+            int start = (int) byDiagonal[a];
+            int last = start;
+            int b = a + 1;
+            while (b < kept && (byDiagonal[b] >>> 32) == diagonal && (int) byDiagonal[b] == last + 1) last = (int) byDiagonal[b++];
+            if (count == out.length) out = java.util.Arrays.copyOf(out, count * 2);
+            out[count++] = new int[]{start, (int) (diagonal - seq1.length()) + start, last - start + k};
+            a = b;
+        }
+        return java.util.Arrays.copyOf(out, count);
+    }
+
+    /**
+     * Heaviest chain of non-overlapping runs increasing in i and j. Runs
+     * are visited by start i; a run becomes a possible predecessor once
+     * the scan passes its end, and the best predecessor ending at or
+     * before seq2 position j comes from a prefix-maximum Fenwick tree.
+     */
+    private int[][] chain(int[][] runs) {
+        int r = runs.length;
+        if (r == 0) return new int[0][];
+        // run indices ordered by start i and by end i (packed as position << 32 | run)
+        long[] byStart = new long[r];
+        long[] byEnd = new long[r];
+        for (int q = 0; q < r; q++) {
+            byStart[q] = ((long) runs[q][0] << 32) | q;
+            byEnd[q] = ((long) (runs[q][0] + runs[q][2]) << 32) | q;
+        }
+        java.util.Arrays.sort(byStart);
+        java.util.Arrays.sort(byEnd);
+
+        int n = seq2.length();
+        long[] tree = new long[n + 2];       // prefix max of (weight << 32 | run), by end j + 1
+        long[] weight = new long[r];
+        int[] previous = new int[r];
+        int added = 0;
+        int bestRun = -1;
+
+        for (int s = 0; s < r; s++) {
+            int q = (int) byStart[s];
+            int i = runs[q][0], j = runs[q][1];
+            while (added < r && (byEnd[added] >>> 32) <= i) {
+                int p = (int) byEnd[added++];
+                long entry = (weight[p] << 32) | p;
+                for (int x = runs[p][1] + runs[p][2] + 1; x <= n + 1; x += x & -x) tree[x] = Math.max(tree[x], entry);
+            }
+            long pred = 0;
+            for (int x = j + 1; x > 0; x -= x & -x) pred = Math.max(pred, tree[x]);
+            weight[q] = (pred >>> 32) + runs[q][2];
+            previous[q] = (pred == 0) ? -1 : (int) pred;
+            if (bestRun < 0 || weight[q] > weight[bestRun]) bestRun = q;
+        }
+
+        int length = 0;
+        for (int q = bestRun; q >= 0; q = previous[q]) length++;
+        int[][] chain = new int[length][];
+        for (int q = bestRun; q >= 0; q = previous[q]) chain[--length] = runs[q];
+        return chain;
+    }
+
+    /** Aligns the pieces [from, to), splitting the range in halves. */
+    private class PieceTask extends RecursiveAction {
+        private final int[] i0, i1, j0, j1;
+        private final NeedlemanWunsch.AlignmentResult[] parts;
+        private final int from, to;
+
+        PieceTask(int[] i0, int[] i1, int[] j0, int[] j1, NeedlemanWunsch.AlignmentResult[] parts, int from, int to) {
+            this.i0 = i0;
+            this.i1 = i1;
+            this.j0 = j0;
+            this.j1 = j1;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from <= 8) {
+                for (int p = from; p < to; p++) {
+                    NeedlemanWunsch nw = new NeedlemanWunsch(seq1.substring(i0[p], i1[p]),
+                            seq2.substring(j0[p], j1[p]), scoring);
+                    boolean large = (long) (i1[p] - i0[p]) * (j1[p] - j0[p]) > FULL_MATRIX_CELLS;
+                    parts[p] = large ? nw.alignLinearSpace() : nw.align();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PieceTask(i0, i1, j0, j1, parts, from, mid),
+                      new PieceTask(i0, i1, j0, j1, parts, mid, to));
+        }
+    }
+}
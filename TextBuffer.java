@@ -0,0 +1,73 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Output buffer for the text renderers (NeedlemanWunsch.writeMatrix(),
+ * DotPlot.writeDotPlot(), ...). Characters and right-aligned numbers are
+ * written into a char[] by hand, without String.format, and handed to the
+ * Appendable one chunk at a time. Rendering therefore allocates nothing per
+ * cell and never holds more than one chunk, whatever the size of the matrix.
+ *
+ * Writing to a Writer or StringBuilder copies the chunk straight across.
+ * Wrap files and streams in a BufferedWriter or OutputStreamWriter; the
+ * chunking already makes the writes large.
+ */
+final class TextBuffer {
+
+    private static final int CHUNK = 8192;
+
+    private final Appendable out;
+    private final char[] buf = new char[CHUNK];
+    private int len;
+
+    TextBuffer(Appendable out) {
+        this.out = out;
+    }
+
+    TextBuffer append(char c) throws IOException {
+        if (len == CHUNK) flush();
+        buf[len++] = c;
+        return this;
+    }
+
+    TextBuffer append(String s) throws IOException {
+        for (int k = 0; k < s.length(); k++) append(s.charAt(k));
+        return this;
+    }
+
+    /** `c` right-aligned in `width` columns, like "%{width}c". */
+    TextBuffer pad(char c, int width) throws IOException {
+        for (int k = 1; k < width; k++) append(' ');
+        return append(c);
+    }
+
+    /** `value` right-aligned in `width` columns, like "%{width}d". */
+    TextBuffer pad(int value, int width) throws IOException {
+        if (len + 12 + width > CHUNK) flush();
+        long v = value;
+        boolean negative = v < 0;
+        if (negative) v = -v;
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) digits++;
+        int size = digits + (negative ? 1 : 0);
+        for (int k = size; k < width; k++) buf[len++] = ' ';
+        if (negative) buf[len++] = '-';
+        int end = len + digits;
+        for (int k = end - 1; k >= len; k--) {
+            buf[k] = (char) ('0' + (int) (v % 10));
+            v /= 10;
+        }
+        len = end;
+        return this;
+    }
+
+    /** Hands the buffered characters to the Appendable (it is not flushed itself). */
+    void flush() throws IOException {
+        if (len == 0) return;
+        if (out instanceof Writer) ((Writer) out).write(buf, 0, len);
+        else if (out instanceof StringBuilder) ((StringBuilder) out).append(buf, 0, len);
+        else out.append(CharBuffer.wrap(buf, 0, len));
+        len = 0;
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel Needleman–Wunsch fill using anti-diagonal wavefronts.
+ *
+ * The DP matrix is cut into square tiles. A tile only depends on the tile
+ * above it, the tile to its left and the one diagonally above-left, so all
+ * tiles on the same anti-diagonal of tiles can be computed at the same time.
+ * The diagonals are processed one after the other and the tiles of each
+ * diagonal are spread over a ForkJoinPool.
+ *
+ * Every cell is computed with exactly the same recurrence as
+ * NeedlemanWunsch.createMatrix(), so the results are identical to the
+ * sequential fill whatever the number of threads or the tile size.
+ */
+public class WavefrontFill {
+
+    public static final int DEFAULT_TILE = 256;
+
+    private final byte[] seq1, seq2;    // residues encoded by the scoring model
+    private final ScoringModel scoring;
+    private final int gap;
+    private final int tile;
+    private final ForkJoinPool pool;
+
+    /**
+     * s1/s2 are encoded with scoring.encodeAll(); only linear gap models are
+     * supported.
+     */
+    public WavefrontFill(byte[] s1, byte[] s2, ScoringModel scoring, int tile, ForkJoinPool pool) {
+        if (tile < 1) throw new IllegalArgumentException("tile size must be positive: " + tile);
+        if (!scoring.isLinear()) throw new IllegalArgumentException("wavefront fill needs a linear gap model");
+        this.seq1 = s1;
+        this.seq2 = s2;
+        this.scoring = scoring;
+        this.gap = scoring.gapExtend();
+        this.tile = tile;
+        this.pool = pool;
+    }
+
+    /**
+     * Fill the full (m+1) x (n+1) matrix, same contents as createMatrix().
+     */
+    public int[][] fillMatrix() {
+        int rows = seq1.length + 1;
+        int cols = seq2.length + 1;
+        final int[][] matrix = new int[rows][cols];
+
+        for (int i = 0; i < rows; i++) matrix[i][0] = i * gap;
+        for (int j = 0; j < cols; j++) matrix[0][j] = j * gap;
+
+        runWavefront(new TileKernel() {
+            public void compute(int ti, int tj) {
+                fillTile(matrix, ti, tj);
+            }
+        });
+        return matrix;
+    }
+
+    /**
+     * Global score only. Instead of the matrix only the tile boundaries are
+     * kept (one row of n+1 and one column of m+1 values), so this also works
+     * for sequence lengths where the full matrix would not fit in memory.
+     */
+    public int score() {
+        final int[] bottom = new int[seq2.length + 1];   // last row computed in each column
+        final int[] right = new int[seq1.length + 1];    // last column computed in each row
+        final int[] corner = new int[tileCount(seq1.length)];
+
+        for (int j = 0; j <= seq2.length; j++) bottom[j] = j * gap;
+        for (int i = 0; i <= seq1.length; i++) right[i] = i * gap;
+
+        if (seq1.length == 0) return bottom[seq2.length];
+        if (seq2.length == 0) return right[seq1.length];
+
+        runWavefront(new TileKernel() {
+            public void compute(int ti, int tj) {
+                scoreTile(bottom, right, corner, ti, tj);
+            }
+        });
+        return bottom[seq2.length];
+    }
+
+    private interface TileKernel {
+        void compute(int ti, int tj);
+    }
+
+    private int tileCount(int length) {
+        return (length + tile - 1) / tile;
+    }
+
+    /**
+     * Run the kernel on every tile, one anti-diagonal of tiles at a time.
+     */
+    private void runWavefront(TileKernel kernel) {
+        int tileRows = tileCount(seq1.length);
+        int tileCols = tileCount(seq2.length);
+        if (tileRows == 0 || tileCols == 0) return;
+
+        for (int d = 0; d < tileRows + tileCols - 1; d++) {
+            int first = Math.max(0, d - tileCols + 1);
+            int last = Math.min(d, tileRows - 1);
+            pool.invoke(new DiagonalTask(kernel, d, first, last + 1));
+        }
+    }
+
+    /**
+     * Computes the tiles (ti, d - ti) for ti in [from, to), splitting the
+     * range in halves so idle workers can steal the other half.
+     */
+    private static class DiagonalTask extends RecursiveAction {
+        private final TileKernel kernel;
+        private final int diagonal, from, to;
+
+        DiagonalTask(TileKernel kernel, int diagonal, int from, int to) {
+            this.kernel = kernel;
+            this.diagonal = diagonal;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from == 1) {
+                kernel.compute(from, diagonal - from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DiagonalTask(kernel, diagonal, from, mid),
+                      new DiagonalTask(kernel, diagonal, mid, to));
+        }
+    }
+
+    private void fillTile(int[][] matrix, int ti, int tj) {
+        int i0 = ti * tile + 1, i1 = Math.min(seq1.length, (ti + 1) * tile);
+        int j0 = tj * tile + 1, j1 = Math.min(seq2.length, (tj + 1) * tile);
+
+        for (int i = i0; i <= i1; i++) {
+            int[] sub = scoring.row(seq1[i - 1]);
+            int[] prev = matrix[i - 1];
+            int[] cur = matrix[i];
+            for (int j = j0; j <= j1; j++) {
+                int diag = prev[j - 1] + sub[seq2[j - 1]];
+                int up = prev[j] + gap;
+                int left = cur[j - 1] + gap;
+                cur[j] = Math.max(diag, Math.max(up, left));
+            }
+        }
+    }
+
+    /**
+     * Score one tile from the boundary arrays and write its own bottom row
+     * and right column back. corner[ti] carries H[i0-1][j0-1] from the tile
+     * on the left, which overwrites that cell of bottom[] before we run.
+     */
+    private void scoreTile(int[] bottom, int[] right, int[] corner, int ti, int tj) {
+        int i0 = ti * tile + 1, i1 = Math.min(seq1.length, (ti + 1) * tile);
+        int j0 = tj * tile + 1, j1 = Math.min(seq2.length, (tj + 1) * tile);
+        int width = j1 - j0 + 1;
+
+        int[] row = new int[width + 1];
+        row[0] = (tj == 0) ? (i0 - 1) * gap : corner[ti];
+        System.arraycopy(bottom, j0, row, 1, width);
+        corner[ti] = bottom[j1];
+
+        for (int i = i0; i <= i1; i++) {
+            int[] sub = scoring.row(seq1[i - 1]);
+            int diagPrev = row[0];
+            row[0] = right[i];
+            for (int k = 1; k <= width; k++) {
+                int diag = diagPrev + sub[seq2[j0 + k - 2]];
+                int up = row[k] + gap;
+                int left = row[k - 1] + gap;
+                diagPrev = row[k];
+                row[k] = Math.max(diag, Math.max(up, left));
+            }
+            right[i] = row[width];
+        }
+        System.arraycopy(row, 1, bottom, j0, width);
+    }
+}
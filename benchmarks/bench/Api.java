@@ -0,0 +1,141 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Access to the application classes from the benchmarks.
+ *
+ * The application lives in the default package, which cannot be imported
+ * from a named package, and JMH refuses benchmarks in the default package.
+ * The calls therefore go through method handles held in static finals,
+ * which the JIT inlines like direct calls.
+ */
+final class Api {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private static final MethodHandle NEW_DOT_PLOT =
+            constructor("DotPlot", String.class, String.class);
+    private static final MethodHandle CREATE_DOT_PLOT =
+            method("DotPlot", "createDotPlot", char[][].class);
+    private static final MethodHandle DOT_PLOT_TO_STRING =
+            method("DotPlot", "dotPlotToString", String.class, char[][].class);
+
+    private static final MethodHandle NEW_NW =
+            constructor("NeedlemanWunsch", String.class, String.class);
+    private static final MethodHandle CREATE_MATRIX =
+            method("NeedlemanWunsch", "createMatrix", int[][].class);
+    private static final MethodHandle ALIGN =
+            method("NeedlemanWunsch", "align", type("NeedlemanWunsch$AlignmentResult"));
+    private static final MethodHandle MATRIX_TO_STRING =
+            method("NeedlemanWunsch", "matrixToString", String.class, int[][].class);
+    private static final MethodHandle WRITE_MATRIX =
+            method("NeedlemanWunsch", "writeMatrix", void.class, int[][].class, Appendable.class);
+    private static final MethodHandle SCORE =
+            method("NeedlemanWunsch", "score", int.class);
+    private static final MethodHandle SCORE_BIT_PARALLEL =
+            method("NeedlemanWunsch", "scoreBitParallel", int.class);
+    private static final MethodHandle SCORE_VECTORIZED =
+            method("NeedlemanWunsch", "scoreVectorized", int.class);
+    private static final MethodHandle SCORE_PARALLEL =
+            method("NeedlemanWunsch", "scoreParallel", int.class, ForkJoinPool.class);
+    private static final MethodHandle VECTOR_KERNEL_AVAILABLE =
+            staticMethod("NeedlemanWunsch", "isVectorKernelAvailable", boolean.class);
+
+    private Api() {
+    }
+
+    static Object dotPlot(String s1, String s2) throws Throwable {
+        return (Object) NEW_DOT_PLOT.invokeExact(s1, s2);
+    }
+
+    static char[][] createDotPlot(Object dotPlot) throws Throwable {
+        return (char[][]) CREATE_DOT_PLOT.invokeExact(dotPlot);
+    }
+
+    static String dotPlotToString(Object dotPlot, char[][] grid) throws Throwable {
+        return (String) DOT_PLOT_TO_STRING.invokeExact(dotPlot, grid);
+    }
+
+    static Object needlemanWunsch(String s1, String s2) throws Throwable {
+        return (Object) NEW_NW.invokeExact(s1, s2);
+    }
+
+    static int[][] createMatrix(Object nw) throws Throwable {
+        return (int[][]) CREATE_MATRIX.invokeExact(nw);
+    }
+
+    static Object align(Object nw) throws Throwable {
+        return (Object) ALIGN.invokeExact(nw);
+    }
+
+    static String matrixToString(Object nw, int[][] matrix) throws Throwable {
+        return (String) MATRIX_TO_STRING.invokeExact(nw, matrix);
+    }
+
+    static void writeMatrix(Object nw, int[][] matrix, Appendable out) throws Throwable {
+        WRITE_MATRIX.invokeExact(nw, matrix, out);
+    }
+
+    static int score(Object nw) throws Throwable {
+        return (int) SCORE.invokeExact(nw);
+    }
+
+    static int scoreBitParallel(Object nw) throws Throwable {
+        return (int) SCORE_BIT_PARALLEL.invokeExact(nw);
+    }
+
+    static int scoreVectorized(Object nw) throws Throwable {
+        return (int) SCORE_VECTORIZED.invokeExact(nw);
+    }
+
+    static int scoreParallel(Object nw, ForkJoinPool pool) throws Throwable {
+        return (int) SCORE_PARALLEL.invokeExact(nw, pool);
+    }
+
+    static boolean isVectorKernelAvailable() throws Throwable {
+        return (boolean) VECTOR_KERNEL_AVAILABLE.invokeExact();
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("application class not on the classpath: " + name, e);
+        }
+    }
+
+    /** Constructor handle typed (params...) -> Object. */
+    private static MethodHandle constructor(String owner, Class<?>... params) {
+        try {
+            MethodHandle mh = LOOKUP.findConstructor(type(owner), MethodType.methodType(void.class, params));
+            return mh.asType(mh.type().changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(owner + " constructor not found", e);
+        }
+    }
+
+    /** Instance method handle typed (Object, params...) -> ret, object results erased to Object. */
+    private static MethodHandle method(String owner, String name, Class<?> ret, Class<?>... params) {
+        try {
+            MethodHandle mh = LOOKUP.findVirtual(type(owner), name, MethodType.methodType(ret, params));
+            MethodType erased = mh.type().changeParameterType(0, Object.class);
+            if (!ret.isPrimitive() && ret != String.class && !ret.isArray()) erased = erased.changeReturnType(Object.class);
+            return mh.asType(erased);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(owner + "." + name + " not found", e);
+        }
+    }
+
+    /** Static method handle typed (params...) -> ret. */
+    private static MethodHandle staticMethod(String owner, String name, Class<?> ret, Class<?>... params) {
+        try {
+            return LOOKUP.findStatic(type(owner), name, MethodType.methodType(ret, params));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(owner + "." + name + " not found", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DotPlot grid construction and its text renderer.
+ * The char[][] grid takes 2 bytes per cell, so keep length small enough
+ * that length^2 * 2 fits the fork's heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class DotPlotBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    int length;
+
+    @Param({"dna", "protein"})
+    String alphabet;
+
+    private Object dotPlot;
+    private char[][] grid;
+
+    @Setup
+    public void setUp() throws Throwable {
+        String letters = Sequences.alphabet(alphabet);
+        dotPlot = Api.dotPlot(Sequences.random(1, length, letters), Sequences.random(2, length, letters));
+        grid = Api.createDotPlot(dotPlot);
+    }
+
+    @Benchmark
+    public char[][] createDotPlot() throws Throwable {
+        return Api.createDotPlot(dotPlot);
+    }
+
+    @Benchmark
+    public String dotPlotToString() throws Throwable {
+        return Api.dotPlotToString(dotPlot, grid);
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full-matrix NeedlemanWunsch: fill, fill + traceback, and the matrix
+ * text renderers (to a String, and streamed to a discarding Writer). These hold the whole int matrix (4 bytes per cell), so
+ * lengths above ~10k need a bigger fork heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class NeedlemanWunschBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    int length;
+
+    @Param({"dna", "protein"})
+    String alphabet;
+
+    private Object nw;
+    private int[][] matrix;
+
+    @Setup
+    public void setUp() throws Throwable {
+        String letters = Sequences.alphabet(alphabet);
+        nw = Api.needlemanWunsch(Sequences.random(1, length, letters), Sequences.random(2, length, letters));
+        matrix = Api.createMatrix(nw);
+    }
+
+    @Benchmark
+    public int[][] createMatrix() throws Throwable {
+        return Api.createMatrix(nw);
+    }
+
+    @Benchmark
+    public Object align() throws Throwable {
+        return Api.align(nw);
+    }
+
+    @Benchmark
+    public String matrixToString() throws Throwable {
+        return Api.matrixToString(nw, matrix);
+    }
+
+    @Benchmark
+    public void writeMatrix() throws Throwable {
+        Api.writeMatrix(nw, matrix, Writer.nullWriter());
+    }
+}
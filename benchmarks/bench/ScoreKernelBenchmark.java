@@ -0,0 +1,63 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Score-only kernels side by side: scalar rolling row, bit-parallel and
+ * Vector API. They use O(n) memory, so these go up to 50k residues.
+ * The fork runs with jdk.incubator.vector so scoreVectorized() uses the
+ * SIMD kernel; setUp() fails when it is missing or disagrees with score().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ScoreKernelBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    int length;
+
+    @Param({"dna", "protein"})
+    String alphabet;
+
+    private Object nw;
+
+    @Setup
+    public void setUp() throws Throwable {
+        String letters = Sequences.alphabet(alphabet);
+        nw = Api.needlemanWunsch(Sequences.random(1, length, letters), Sequences.random(2, length, letters));
+        if (!Api.isVectorKernelAvailable())
+            throw new IllegalStateException("vector kernel not available, build with the vector/ sources");
+        if (Api.scoreVectorized(nw) != Api.score(nw))
+            throw new IllegalStateException("scoreVectorized() disagrees with score()");
+    }
+
+    @Benchmark
+    public int scalar() throws Throwable {
+        return Api.score(nw);
+    }
+
+    @Benchmark
+    public int bitParallel() throws Throwable {
+        return Api.scoreBitParallel(nw);
+    }
+
+    @Benchmark
+    public int vectorized() throws Throwable {
+        return Api.scoreVectorized(nw);
+    }
+}
@@ -0,0 +1,30 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * Seeded random test sequences, so every run benchmarks the same input.
+ */
+final class Sequences {
+
+    static final String DNA = "ACGT";
+    static final String PROTEIN = "ACDEFGHIKLMNPQRSTVWY";
+
+    private Sequences() {
+    }
+
+    static String alphabet(String name) {
+        switch (name) {
+            case "dna": return DNA;
+            case "protein": return PROTEIN;
+            default: throw new IllegalArgumentException("unknown alphabet: " + name);
+        }
+    }
+
+    static String random(long seed, int length, String alphabet) {
+        Random rnd = new Random(seed);
+        char[] out = new char[length];
+        for (int k = 0; k < length; k++) out[k] = alphabet.charAt(rnd.nextInt(alphabet.length()));
+        return new String(out);
+    }
+}
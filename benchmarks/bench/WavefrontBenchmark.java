@@ -0,0 +1,61 @@
+package bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Speed-up of the tiled wavefront (scoreParallel()) on pools of growing
+ * size; threads = 0 is the sequential score() it is measured against.
+ * Both are score-only, so the large lengths fit in memory. Thread counts
+ * above the machine's CPUs only show the scheduling overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WavefrontBenchmark {
+
+    @Param({"10000", "20000", "50000"})
+    int length;
+
+    @Param({"0", "1", "2", "4", "8"})
+    int threads;
+
+    private Object nw;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() throws Throwable {
+        nw = Api.needlemanWunsch(Sequences.random(1, length, Sequences.DNA), Sequences.random(2, length, Sequences.DNA));
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            if (Api.scoreParallel(nw, pool) != Api.score(nw))
+                throw new IllegalStateException("scoreParallel() disagrees with score()");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public int score() throws Throwable {
+        return threads == 0 ? Api.score(nw) : Api.scoreParallel(nw, pool);
+    }
+}
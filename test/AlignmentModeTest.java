@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlignmentModeTest {
+
+    /** Textbook Gotoh global score, independent of NeedlemanWunsch. */
+    static int globalScore(String a, String b, ScoringModel scoring) {
+        int m = a.length(), n = b.length();
+        int open = scoring.gapOpen(), extend = scoring.gapExtend();
+        int inf = Integer.MIN_VALUE / 4;
+        int[][] h = new int[m + 1][n + 1], x = new int[m + 1][n + 1], y = new int[m + 1][n + 1];
+        for (int i = 0; i <= m; i++) {
+            for (int j = 0; j <= n; j++) {
+                x[i][j] = i == 0 ? inf : Math.max(h[i - 1][j] + open, x[i - 1][j] + extend);
+                y[i][j] = j == 0 ? inf : Math.max(h[i][j - 1] + open, y[i][j - 1] + extend);
+                if (i == 0 && j == 0) h[i][j] = 0;
+                else if (i == 0) h[i][j] = y[i][j];
+                else if (j == 0) h[i][j] = x[i][j];
+                else {
+                    int sub = scoring.score(scoring.encode(a.substring(i - 1, i))[0], scoring.encode(b.substring(j - 1, j))[0]);
+                    h[i][j] = Math.max(h[i - 1][j - 1] + sub, Math.max(x[i][j], y[i][j]));
+                }
+            }
+        }
+        return h[m][n];
+    }
+
+    /** Best score of the mode by trying every pair of substrings the mode allows. */
+    static int bruteForce(String s1, String s2, NeedlemanWunsch.Mode mode, ScoringModel scoring) {
+        int m = s1.length(), n = s2.length();
+        int best = Integer.MIN_VALUE;
+        for (int i0 = 0; i0 <= m; i0++)
+            for (int i1 = i0; i1 <= m; i1++)
+                for (int j0 = 0; j0 <= n; j0++)
+                    for (int j1 = j0; j1 <= n; j1++)
+                        if (allowed(mode, i0, i1, j0, j1, m, n))
+                            best = Math.max(best, globalScore(s1.substring(i0, i1), s2.substring(j0, j1), scoring));
+        return best;
+    }
+
+    static boolean allowed(NeedlemanWunsch.Mode mode, int i0, int i1, int j0, int j1, int m, int n) {
+        switch (mode) {
+            case GLOBAL: return i0 == 0 && i1 == m && j0 == 0 && j1 == n;
+            case GLOCAL: return i0 == 0 && i1 == m;
+            case OVERLAP: return (i0 == 0 || j0 == 0) && (i1 == m || j1 == n);
+            default: return true;
+        }
+    }
+
+    @Test
+    void everyModeMatchesTheBruteForceOptimum() {
+        Random rnd = new Random(21);
+        ScoringModel[] models = {ScoringModel.DEFAULT, ScoringModel.simple(2, -3, -4, -1)};
+        for (int it = 0; it < 300; it++) {
+            String s1 = RandomSequences.dna(rnd, rnd.nextInt(9));
+            String s2 = it % 2 == 0 ? RandomSequences.dna(rnd, rnd.nextInt(9)) : RandomSequences.mutate(rnd, s1, 0.3);
+            for (ScoringModel scoring : models) {
+                for (NeedlemanWunsch.Mode mode : NeedlemanWunsch.Mode.values()) {
+                    String what = s1 + " / " + s2 + " " + mode + " " + scoring;
+                    NeedlemanWunsch.AlignmentResult res = new NeedlemanWunsch(s1, s2, scoring).align(mode);
+
+                    assertEquals(bruteForce(s1, s2, mode, scoring), res.score, what);
+                    assertTrue(allowed(mode, res.start1, res.end1, res.start2, res.end2, s1.length(), s2.length()), what);
+                    assertEquals(s1.substring(res.start1, res.end1), res.alignedSeq1.replace("-", ""), what);
+                    assertEquals(s2.substring(res.start2, res.end2), res.alignedSeq2.replace("-", ""), what);
+                    assertEquals(res.score, BandedAlignmentTest.rescore(res.alignedSeq1, res.alignedSeq2, scoring), what);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlignmentPipelineTest {
+
+    static FastxReader reader(String text) {
+        return new FastxReader("test", Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    static AlignmentPipeline pipeline() {
+        AlignmentPipeline p = new AlignmentPipeline(ScoringModel.DEFAULT, 2, 2);
+        p.setScoreOnly(true);
+        return p;
+    }
+
+    @Test
+    void wellFormedPairsAreAllAligned() throws IOException {
+        StringWriter out = new StringWriter();
+        long pairs = pipeline().run(reader(">a\nACGT\n>b\nACGA\n>c\nTTTT\n>d\nTTTT\n"), null, out);
+        assertEquals(2, pairs);
+        assertTrue(out.toString().contains(">a vs b (4 x 4) score=2"), out.toString());
+        assertTrue(out.toString().contains(">c vs d (4 x 4) score=4"), out.toString());
+    }
+
+    @Test
+    void unpairedRecordFails() {
+        assertThrows(IOException.class, () ->
+                pipeline().run(reader(">a\nACGT\n>b\nACGA\n>c\nTTTT\n"), null, new StringWriter()));
+        assertThrows(IOException.class, () ->
+                pipeline().run(reader(">a\nACGT\n>b\nACGA\n"), reader(">c\nTTTT\n"), new StringWriter()));
+    }
+
+    @Test
+    void malformedRecordFails() {
+        assertThrows(IOException.class, () ->
+                pipeline().run(reader("@a\nACGT\n+\nIIII\n@b\nACGA\n+\nII\n"), null, new StringWriter()));
+        assertThrows(IOException.class, () ->
+                pipeline().run(reader("ACGT\n"), null, new StringWriter()));
+    }
+
+    @Test
+    void readerRuntimeErrorFailsInsteadOfEndingEarly() {
+        final ByteBuffer data = ByteBuffer.wrap(">a\nACGT\n>b\nACGA\n".getBytes(StandardCharsets.US_ASCII));
+        ReadableByteChannel broken = new ReadableByteChannel() {
+            public int read(ByteBuffer dst) {
+                if (!data.hasRemaining()) throw new IllegalStateException("device gone");
+                int count = Math.min(dst.remaining(), data.remaining());
+                for (int k = 0; k < count; k++) dst.put(data.get());
+                return count;
+            }
+
+            public boolean isOpen() {
+                return true;
+            }
+
+            public void close() {
+            }
+        };
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                pipeline().run(new FastxReader("broken", broken), null, new StringWriter()));
+        assertEquals("device gone", e.getMessage());
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlignmentServerTest {
+
+    static final ScoringModel SCORING = ScoringModel.simple(2, -3, -2);
+
+    static CompletableFuture<HttpResponse<String>> post(HttpClient client, AlignmentServer server,
+                                                        String query, String s1, String s2) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/align" + query))
+                .POST(HttpRequest.BodyPublishers.ofString(">a\n" + s1 + "\n>b\n" + s2 + "\n"))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    static int scoreOf(String body) {
+        String first = body.substring(0, body.indexOf('\n'));
+        int end = first.indexOf(' ');
+        return Integer.parseInt(first.substring("score=".length(), end < 0 ? first.length() : end));
+    }
+
+    @Test
+    void batchedResponsesCarryTheirOwnScore() throws Exception {
+        AlignmentServer server = new AlignmentServer(SCORING, 2, 256, 8);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            Random rnd = new Random(25);
+            List<String[]> pairs = new ArrayList<>();
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int k = 0; k < 120; k++) {
+                String s1 = RandomSequences.dna(rnd, 1 + rnd.nextInt(300));
+                String s2 = RandomSequences.mutate(rnd, s1, 0.2) + RandomSequences.dna(rnd, 1 + rnd.nextInt(5));
+                pairs.add(new String[]{s1, s2});
+                responses.add(post(client, server, k % 2 == 0 ? "?scoreOnly=true" : "", s1, s2));
+            }
+            for (int k = 0; k < pairs.size(); k++) {
+                HttpResponse<String> response = responses.get(k).get();
+                assertEquals(200, response.statusCode(), response.body());
+                String[] pair = pairs.get(k);
+                assertEquals(new NeedlemanWunsch(pair[0], pair[1], SCORING).score(), scoreOf(response.body()), "request " + k);
+            }
+            assertEquals(pairs.size(), server.accepted());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void fullQueueIsRefusedWith503() throws Exception {
+        AlignmentServer server = new AlignmentServer(SCORING, 1, 1, 1);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            Random rnd = new Random(26);
+            // one worker and a queue of one: a burst of slow pairs cannot all be taken
+            String s1 = RandomSequences.dna(rnd, 4000), s2 = RandomSequences.dna(rnd, 4000);
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int k = 0; k < 16; k++) responses.add(post(client, server, "?scoreOnly=true", s1, s2));
+
+            int ok = 0, refused = 0;
+            for (CompletableFuture<HttpResponse<String>> f : responses) {
+                HttpResponse<String> response = f.get();
+                if (response.statusCode() == 200) {
+                    ok++;
+                } else {
+                    assertEquals(503, response.statusCode(), response.body());
+                    assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+                    refused++;
+                }
+            }
+            assertTrue(refused > 0, "no request was refused");
+            assertEquals(ok, server.accepted());
+            assertEquals(refused, server.rejected());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BandedAlignmentTest {
+
+    /** Score of an alignment column by column, with affine gaps. */
+    static int rescore(String a1, String a2, ScoringModel scoring) {
+        int total = 0;
+        char lastGap = 0;
+        for (int k = 0; k < a1.length(); k++) {
+            char c = a1.charAt(k), d = a2.charAt(k);
+            if (c == '-' || d == '-') {
+                char gap = (c == '-') ? '1' : '2';
+                total += (gap == lastGap) ? scoring.gapExtend() : scoring.gapOpen();
+                lastGap = gap;
+            } else {
+                total += scoring.score(scoring.encode(String.valueOf(c))[0], scoring.encode(String.valueOf(d))[0]);
+                lastGap = 0;
+            }
+        }
+        return total;
+    }
+
+    static void assertValidGlobal(NeedlemanWunsch.AlignmentResult res, String s1, String s2, ScoringModel scoring) {
+        assertEquals(s1, res.alignedSeq1.replace("-", ""));
+        assertEquals(s2, res.alignedSeq2.replace("-", ""));
+        assertEquals(res.score, rescore(res.alignedSeq1, res.alignedSeq2, scoring));
+    }
+
+    @Test
+    void bandedScoreIsOptimalForAnyStartingWidth() {
+        Random rnd = new Random(7);
+        ScoringModel[] models = {ScoringModel.DEFAULT, ScoringModel.simple(2, -3, -2, -2)};
+        for (int it = 0; it < 1500; it++) {
+            String s1 = RandomSequences.dna(rnd, rnd.nextInt(120));
+            String s2 = it % 3 == 0 ? RandomSequences.dna(rnd, rnd.nextInt(120)) : RandomSequences.mutate(rnd, s1, 0.15);
+            int k = rnd.nextInt(8);
+            for (ScoringModel scoring : models) {
+                NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2, scoring);
+                NeedlemanWunsch.AlignmentResult banded = nw.alignBanded(k);
+                assertEquals(nw.score(), banded.score, s1 + " / " + s2 + " k=" + k);
+                assertValidGlobal(banded, s1, s2, scoring);
+            }
+        }
+    }
+}
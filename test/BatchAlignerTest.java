@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchAlignerTest {
+
+    @Test
+    void everyPairGetsItsOwnScore() {
+        Random rnd = new Random(6);
+        List<String> queries = new ArrayList<>(), targets = new ArrayList<>();
+        for (int k = 0; k < 20; k++) queries.add(RandomSequences.dna(rnd, rnd.nextInt(120)));
+        for (int k = 0; k < 30; k++)
+            targets.add(k % 2 == 0 ? RandomSequences.mutate(rnd, queries.get(k % 20), 0.2) : RandomSequences.dna(rnd, rnd.nextInt(200)));
+
+        ScoringModel[] models = {ScoringModel.DEFAULT, ScoringModel.simple(2, -3, -4, -1)};
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (ScoringModel scoring : models) {
+                for (boolean full : new boolean[]{false, true}) {
+                    final AtomicIntegerArray scores = new AtomicIntegerArray(queries.size() * targets.size());
+                    final AtomicIntegerArray calls = new AtomicIntegerArray(scores.length());
+                    final int cols = targets.size();
+                    BatchAligner batch = new BatchAligner(scoring, pool);
+                    batch.setFullAlignment(full);
+                    batch.alignAll(queries, targets, new BatchAligner.Listener() {
+                        public void onResult(int query, int target, int score, NeedlemanWunsch.AlignmentResult alignment) {
+                            scores.set(query * cols + target, score);
+                            calls.incrementAndGet(query * cols + target);
+                        }
+                    });
+                    for (int i = 0; i < queries.size(); i++) {
+                        for (int j = 0; j < cols; j++) {
+                            String what = "query " + i + ", target " + j + (full ? " (full)" : "");
+                            assertEquals(1, calls.get(i * cols + j), what);
+                            assertEquals(new NeedlemanWunsch(queries.get(i), targets.get(j), scoring).score(),
+                                    scores.get(i * cols + j), what);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BitDotPlotTest {
+
+    @Test
+    void sameGridAsTheCharDotPlot() {
+        Random rnd = new Random(11);
+        String[] alphabets = {RandomSequences.DNA, RandomSequences.PROTEIN, "ABéü"};
+        for (int it = 0; it < 600; it++) {
+            // widths around the 64-column word boundaries matter most
+            String alphabet = alphabets[it % alphabets.length];
+            String s1 = RandomSequences.random(rnd, alphabet, rnd.nextInt(150));
+            String s2 = RandomSequences.random(rnd, alphabet, rnd.nextInt(it % 10 == 0 ? 400 : 150));
+            DotPlot plot = new DotPlot(s1, s2);
+            char[][] expected = plot.createDotPlot();
+            BitDotPlot bits = plot.createBitDotPlot();
+            String what = s1 + " / " + s2;
+
+            assertEquals(s1.length(), bits.rows(), what);
+            assertEquals(s2.length(), bits.cols(), what);
+            assertArrayEquals(expected, bits.toCharGrid(), what);
+            long marked = 0;
+            for (int i = 0; i < expected.length; i++)
+                for (int j = 0; j < expected[i].length; j++) {
+                    assertEquals(expected[i][j] == '*', bits.get(i, j), what + " at " + i + "," + j);
+                    if (expected[i][j] == '*') marked++;
+                }
+            assertEquals(marked, bits.count(), what);
+        }
+    }
+}
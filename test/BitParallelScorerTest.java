@@ -0,0 +1,33 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BitParallelScorerTest {
+
+    @Test
+    void matchesTheFullMatrixOnRandomPairs() {
+        Random rnd = new Random(4);
+        for (int it = 0; it < 3000; it++) {
+            // lengths around the 64-residue block boundaries matter most
+            int n = rnd.nextInt(it % 10 == 0 ? 300 : 140);
+            String s1 = RandomSequences.dna(rnd, n);
+            String s2 = it % 2 == 0 ? RandomSequences.mutate(rnd, s1, 0.2) : RandomSequences.dna(rnd, rnd.nextInt(140));
+            NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2);
+            int[][] m = nw.createMatrix();
+            assertEquals(m[s1.length()][s2.length()], nw.scoreBitParallel(), s1 + " / " + s2);
+        }
+    }
+
+    @Test
+    void emptyAndSingleResidueSequences() {
+        String[] inputs = {"", "A", "C", "AC", "CA"};
+        for (String s1 : inputs) {
+            for (String s2 : inputs) {
+                NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2);
+                assertEquals(nw.score(), BitParallelScorer.score(s1, s2), s1 + " / " + s2);
+            }
+        }
+    }
+}
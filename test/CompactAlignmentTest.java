@@ -0,0 +1,33 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompactAlignmentTest {
+
+    static String pathString(java.util.List<int[]> path) {
+        return java.util.Arrays.deepToString(path.toArray(new int[0][]));
+    }
+
+    @Test
+    void sameAlignmentAsTheFullMatrix() {
+        Random rnd = new Random(8);
+        ScoringModel[] models = {ScoringModel.DEFAULT, ScoringModel.simple(2, -3, -2), ScoringModel.simple(2, -3, -4, -1)};
+        for (int it = 0; it < 1000; it++) {
+            // lengths around the 32-moves-per-long boundaries matter most
+            String s1 = RandomSequences.dna(rnd, rnd.nextInt(it % 10 == 0 ? 300 : 70));
+            String s2 = it % 2 == 0 ? RandomSequences.mutate(rnd, s1, 0.2) : RandomSequences.dna(rnd, rnd.nextInt(70));
+            for (ScoringModel scoring : models) {
+                NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2, scoring);
+                NeedlemanWunsch.AlignmentResult full = nw.align();
+                NeedlemanWunsch.AlignmentResult compact = nw.alignCompact();
+                String what = s1 + " / " + s2;
+                assertEquals(full.score, compact.score, what);
+                assertEquals(full.alignedSeq1, compact.alignedSeq1, what);
+                assertEquals(full.alignedSeq2, compact.alignedSeq2, what);
+                assertEquals(pathString(full.path()), pathString(compact.path()), what);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilteredDotPlotTest {
+
+    /** Cell (i, j) counted directly: matches among the window pairs centred on it, if the window fits. */
+    static boolean bruteForce(String s1, String s2, int i, int j, int window, int stringency) {
+        int half = (window - 1) / 2;
+        int i0 = i - half, j0 = j - half;
+        if (i0 < 0 || j0 < 0 || i0 + window > s1.length() || j0 + window > s2.length()) return false;
+        int count = 0;
+        for (int k = 0; k < window; k++) if (s1.charAt(i0 + k) == s2.charAt(j0 + k)) count++;
+        return count >= stringency;
+    }
+
+    @Test
+    void matchesABruteForceWindowCount() {
+        Random rnd = new Random(12);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int it = 0; it < 300; it++) {
+                // tall inputs span several row bands
+                String s1 = RandomSequences.dna(rnd, rnd.nextInt(it % 5 == 0 ? 400 : 90));
+                String s2 = it % 2 == 0 ? RandomSequences.mutate(rnd, s1, 0.2) : RandomSequences.dna(rnd, rnd.nextInt(90));
+                int window = 1 + rnd.nextInt(15);
+                int stringency = 1 + rnd.nextInt(window);
+                BitDotPlot plot = new DotPlot(s1, s2).createFilteredDotPlot(window, stringency, pool);
+                String what = s1 + " / " + s2 + " window=" + window + " stringency=" + stringency;
+                for (int i = 0; i < s1.length(); i++)
+                    for (int j = 0; j < s2.length(); j++)
+                        assertEquals(bruteForce(s1, s2, i, j, window, stringency), plot.get(i, j),
+                                what + " at " + i + "," + j);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
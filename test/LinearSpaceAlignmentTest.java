@@ -0,0 +1,33 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LinearSpaceAlignmentTest {
+
+    @Test
+    void matchesTheFullMatrixForLinearAndAffineGaps() {
+        Random rnd = new Random(11);
+        ScoringModel[] models = {
+                ScoringModel.DEFAULT,
+                ScoringModel.simple(1, -1, -3, -1),
+                ScoringModel.simple(2, -3, -5, -2),
+                ScoringModel.simple(3, -2, -6, -1),
+        };
+        for (int it = 0; it < 1500; it++) {
+            String s1 = RandomSequences.dna(rnd, rnd.nextInt(100));
+            String s2 = it % 3 == 0 ? RandomSequences.dna(rnd, rnd.nextInt(100)) : RandomSequences.mutate(rnd, s1, 0.2);
+            for (ScoringModel scoring : models) {
+                NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2, scoring);
+                NeedlemanWunsch.AlignmentResult res = nw.alignLinearSpace();
+                String pair = s1 + " / " + s2 + " " + scoring;
+                assertEquals(nw.align().score, res.score, pair);
+                BandedAlignmentTest.assertValidGlobal(res, s1, s2, scoring);
+                int[] last = res.tracebackPath.get(res.tracebackPath.size() - 1);
+                assertEquals(s1.length(), last[0], pair);
+                assertEquals(s2.length(), last[1], pair);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedMatrixTest {
+
+    @TempDir
+    Path dir;
+
+    private long filesIn(Path d) throws IOException {
+        try (Stream<Path> files = Files.list(d)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void failedCreateLeavesNoFileBehind() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> MappedMatrix.create(1 << 30, 1 << 30, dir));
+        assertEquals(0, filesIn(dir));
+    }
+
+    @Test
+    void fillsAndTracebacksMatchTheHeapMatrix() throws IOException {
+        Random rnd = new Random(23);
+        ScoringModel[] models = {ScoringModel.DEFAULT, ScoringModel.simple(2, -3, -4, -1)};
+        for (int it = 0; it < 300; it++) {
+            // sizes around the 64 x 64 tiles
+            String s1 = RandomSequences.dna(rnd, rnd.nextInt(it % 10 == 0 ? 200 : 80));
+            String s2 = it % 2 == 0 ? RandomSequences.mutate(rnd, s1, 0.2) : RandomSequences.dna(rnd, rnd.nextInt(150));
+            for (ScoringModel scoring : models) {
+                NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2, scoring);
+                String what = s1 + " / " + s2 + " " + scoring;
+                int[][] heap = nw.createMatrix();
+                try (MappedMatrix mapped = MappedMatrix.create(s1.length() + 1, s2.length() + 1, dir)) {
+                    nw.createMatrix(mapped);
+                    int[] row = new int[s2.length() + 1];
+                    for (int i = 0; i <= s1.length(); i++) {
+                        mapped.getRow(i, row);
+                        assertArrayEquals(heap[i], row, what + " row " + i);
+                        assertEquals(heap[i][s2.length()], mapped.get(i, s2.length()), what);
+                    }
+                    if (!scoring.isLinear()) continue;    // align(mode, matrix) is linear only
+
+                    for (NeedlemanWunsch.Mode mode : NeedlemanWunsch.Mode.values()) {
+                        NeedlemanWunsch.AlignmentResult expected = nw.align(mode);
+                        NeedlemanWunsch.AlignmentResult got = nw.align(mode, mapped);
+                        assertEquals(expected.score, got.score, what + " " + mode);
+                        assertEquals(expected.alignedSeq1, got.alignedSeq1, what + " " + mode);
+                        assertEquals(expected.alignedSeq2, got.alignedSeq2, what + " " + mode);
+                        assertEquals(expected.start1, got.start1, what + " " + mode);
+                        assertEquals(expected.start2, got.start2, what + " " + mode);
+                    }
+                }
+            }
+        }
+        assertEquals(0, filesIn(dir));
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NonAsciiScoringTest {
+
+    private static final String ALPHABET = "ACGTéüñß\u0000一";
+
+    @Test
+    void everyKernelAgreesWithTheDotPlot() {
+        for (char a : ALPHABET.toCharArray()) {
+            for (char b : ALPHABET.toCharArray()) {
+                String s1 = String.valueOf(a), s2 = String.valueOf(b);
+                char dot = new DotPlot(s1, s2).createDotPlot()[0][0];
+                NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2);
+                int expected = dot == '*' ? 1 : -1;
+                String pair = s1 + " / " + s2;
+                assertEquals(expected, nw.createMatrix()[1][1], pair);
+                assertEquals(expected, nw.score(), pair);
+                assertEquals(expected, nw.scoreBitParallel(), pair);
+            }
+        }
+    }
+
+    @Test
+    void randomPairsScoreTheSameEverywhere() {
+        Random rnd = new Random(5);
+        ScoringModel affine = ScoringModel.simple(2, -3, -4, -1);
+        for (int it = 0; it < 500; it++) {
+            String s1 = RandomSequences.random(rnd, ALPHABET, rnd.nextInt(90));
+            String s2 = it % 2 == 0 ? RandomSequences.mutate(rnd, s1, 0.2) : RandomSequences.random(rnd, ALPHABET, rnd.nextInt(90));
+            String pair = s1 + " / " + s2;
+
+            NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2);
+            int score = nw.createMatrix()[s1.length()][s2.length()];
+            assertEquals(score, nw.score(), pair);
+            assertEquals(score, nw.scoreBitParallel(), pair);
+            assertEquals(score, nw.align().score, pair);
+
+            NeedlemanWunsch gotoh = new NeedlemanWunsch(s1, s2, affine);
+            assertEquals(gotoh.align().score, gotoh.score(), pair);
+        }
+    }
+
+    @Test
+    void batchAlignerEncodesQueriesAndTargetsTogether() {
+        final int[] scores = new int[1];
+        new BatchAligner(ScoringModel.DEFAULT, java.util.concurrent.ForkJoinPool.commonPool()).alignAll(
+                Collections.singletonList("é"), Arrays.asList("ü"),
+                new BatchAligner.Listener() {
+                    public void onResult(int query, int target, int score, NeedlemanWunsch.AlignmentResult alignment) {
+                        scores[0] = score;
+                    }
+                });
+        assertEquals(-1, scores[0]);
+    }
+}
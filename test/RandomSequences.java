@@ -0,0 +1,34 @@
+import java.util.Random;
+
+/** Seeded random inputs shared by the tests. */
+final class RandomSequences {
+
+    static final String DNA = "ACGT";
+    static final String PROTEIN = "ARNDCQEGHILKMFPSTWYV";
+
+    private RandomSequences() {
+    }
+
+    static String random(Random rnd, String alphabet, int length) {
+        char[] c = new char[length];
+        for (int k = 0; k < length; k++) c[k] = alphabet.charAt(rnd.nextInt(alphabet.length()));
+        return new String(c);
+    }
+
+    static String dna(Random rnd, int length) {
+        return random(rnd, DNA, length);
+    }
+
+    /** `s` with about rate * length substitutions, insertions and deletions. */
+    static String mutate(Random rnd, String s, double rate) {
+        StringBuilder b = new StringBuilder(s.length() + 16);
+        for (int k = 0; k < s.length(); k++) {
+            double x = rnd.nextDouble();
+            if (x < rate / 3) continue;
+            if (x < 2 * rate / 3) b.append(DNA.charAt(rnd.nextInt(4)));
+            else if (x < rate) b.append(s.charAt(k)).append(DNA.charAt(rnd.nextInt(4)));
+            else b.append(s.charAt(k));
+        }
+        return b.toString();
+    }
+}
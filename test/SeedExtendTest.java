@@ -0,0 +1,38 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeedExtendTest {
+
+    static final ScoringModel[] MODELS = {ScoringModel.DEFAULT, ScoringModel.simple(2, -3, -5, -1)};
+
+    static void assertValidAndBounded(String s1, String s2, ScoringModel scoring, int k) {
+        NeedlemanWunsch.AlignmentResult res = new SeedExtend(s1, s2, scoring, k, ForkJoinPool.commonPool()).align();
+        BandedAlignmentTest.assertValidGlobal(res, s1, s2, scoring);
+        int optimum = new NeedlemanWunsch(s1, s2, scoring).score();
+        assertTrue(res.score <= optimum, res.score + " > " + optimum);
+    }
+
+    @Test
+    void stitchedAlignmentIsAValidGlobalAlignment() {
+        Random rnd = new Random(22);
+        for (int it = 0; it < 60; it++) {
+            String s1 = RandomSequences.dna(rnd, rnd.nextInt(1500));
+            String s2 = it % 5 == 0 ? RandomSequences.dna(rnd, rnd.nextInt(1500)) : RandomSequences.mutate(rnd, s1, 0.08);
+            for (ScoringModel scoring : MODELS) assertValidAndBounded(s1, s2, scoring, 6 + it % 7);
+        }
+    }
+
+    @Test
+    void largePiecesAreStitchedToo() {
+        // an unanchored middle of over FULL_MATRIX_CELLS goes through alignLinearSpace()
+        Random rnd = new Random(23);
+        String flank1 = RandomSequences.dna(rnd, 300), flank2 = RandomSequences.dna(rnd, 300);
+        String s1 = flank1 + RandomSequences.random(rnd, "AC", 2200) + flank2;
+        String s2 = flank1 + RandomSequences.random(rnd, "GT", 2100) + flank2;
+        for (ScoringModel scoring : MODELS) assertValidAndBounded(s1, s2, scoring, 12);
+    }
+}
@@ -0,0 +1,44 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SparseDotPlotTest {
+
+    /** Every (i, j) with seq1[i, i+k) == seq2[j, j+k), packed and sorted like the index's hits. */
+    static long[] bruteForce(String s1, String s2, int k) {
+        java.util.List<Long> hits = new java.util.ArrayList<>();
+        for (int i = 0; i + k <= s1.length(); i++)
+            for (int j = 0; j + k <= s2.length(); j++)
+                if (s1.regionMatches(i, s2, j, k)) hits.add(((long) i << 32) | j);
+        long[] out = new long[hits.size()];
+        for (int p = 0; p < out.length; p++) out[p] = hits.get(p);
+        return out;
+    }
+
+    @Test
+    void sparseDotPlotMatchesEverySharedKmer() {
+        Random rnd = new Random(13);
+        String[] alphabets = {RandomSequences.DNA, RandomSequences.DNA + "N", RandomSequences.PROTEIN};
+        int[] ks = {1, 3, 8, 12, 16, 21, 31, 40};
+        for (int it = 0; it < 120; it++) {
+            String alphabet = alphabets[it % alphabets.length];
+            String s2 = RandomSequences.random(rnd, alphabet, rnd.nextInt(300));
+            String s1 = it % 4 == 0 ? RandomSequences.random(rnd, alphabet, rnd.nextInt(300))
+                    : RandomSequences.mutate(rnd, s2, 0.05) + (it % 3 == 0 ? "NX" : "");
+            for (int k : ks) {
+                long[] hits = new DotPlot(s1, s2).createSparseDotPlot(k);
+                assertArrayEquals(bruteForce(s1, s2, k), hits, s1 + " / " + s2 + " k=" + k);
+            }
+        }
+    }
+
+    @Test
+    void repeatsHitEveryCopy() {
+        String s2 = "ACGTN".repeat(40);
+        String s1 = "TTACGTNACGTNACGTNACGTNAC";
+        for (int k = 1; k <= s1.length(); k++)
+            assertArrayEquals(bruteForce(s1, s2, k), new DotPlot(s1, s2).createSparseDotPlot(k), "k=" + k);
+    }
+}
@@ -0,0 +1,31 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorScorerTest {
+
+    @Test
+    void vectorKernelIsLoaded() {
+        // surefire runs with --add-modules jdk.incubator.vector, so the test below is not just the scalar fallback
+        assertTrue(NeedlemanWunsch.isVectorKernelAvailable());
+    }
+
+    @Test
+    void sameScoreAsTheFullMatrix() {
+        Random rnd = new Random(9);
+        ScoringModel[] models = {ScoringModel.DEFAULT, ScoringModel.simple(2, -3, -2), ScoringModel.simple(5, -4, -7)};
+        for (int it = 0; it < 2000; it++) {
+            // short and ragged lengths cover the partial vectors at the ends of each anti-diagonal
+            String s1 = RandomSequences.dna(rnd, rnd.nextInt(it % 10 == 0 ? 400 : 40));
+            String s2 = it % 2 == 0 ? RandomSequences.mutate(rnd, s1, 0.2) : RandomSequences.dna(rnd, rnd.nextInt(40));
+            for (ScoringModel scoring : models) {
+                NeedlemanWunsch nw = new NeedlemanWunsch(s1, s2, scoring);
+                int[][] m = nw.createMatrix();
+                assertEquals(m[s1.length()][s2.length()], nw.scoreVectorized(), s1 + " / " + s2);
+            }
+        }
+    }
+}
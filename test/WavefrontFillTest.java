@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WavefrontFillTest {
+
+    @Test
+    void sameMatrixAndScoreAsTheSequentialFillForAnyTileSize() {
+        Random rnd = new Random(3);
+        ScoringModel[] models = {ScoringModel.DEFAULT, ScoringModel.simple(2, -3, -2)};
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int it = 0; it < 400; it++) {
+                String s1 = RandomSequences.dna(rnd, rnd.nextInt(it % 10 == 0 ? 600 : 150));
+                String s2 = it % 2 == 0 ? RandomSequences.mutate(rnd, s1, 0.2) : RandomSequences.dna(rnd, rnd.nextInt(150));
+                int tile = 1 + rnd.nextInt(it % 3 == 0 ? 8 : 300);
+                for (ScoringModel scoring : models) {
+                    int[][] expected = new NeedlemanWunsch(s1, s2, scoring).createMatrix();
+                    byte[][] codes = scoring.encodeAll(s1, s2);
+                    WavefrontFill fill = new WavefrontFill(codes[0], codes[1], scoring, tile, pool);
+                    String what = s1 + " / " + s2 + " tile=" + tile;
+                    assertArrayEquals(expected, fill.fillMatrix(), what);
+                    assertEquals(expected[s1.length()][s2.length()], fill.score(), what);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD score-only Needleman–Wunsch kernel on the incubating Vector API.
+ *
+ * The matrix is swept by anti-diagonals (i + j = d). All cells of one
+ * anti-diagonal only depend on the two previous ones, so they are computed
+ * a full vector of int lanes at a time: the three diagonals are kept in
+ * arrays indexed by i, and seq2 is stored reversed so that its residues
+ * along a diagonal are contiguous as well. Match/mismatch models compare
+ * the residue codes lane by lane; other substitution matrices gather the
+ * scores from a flattened copy of the matrix.
+ *
+ * Every cell uses the same max of diagonal, up and left as the scalar
+ * fill, so the score is identical. Affine models use the scalar kernel.
+ *
+ * This file needs jdk.incubator.vector and is built separately:
+ *   javac --add-modules jdk.incubator.vector -cp out -d out vector/VectorScorer.java
+ * NeedlemanWunsch.scoreVectorized() picks it up at run time when the JVM is
+ * started with --add-modules jdk.incubator.vector. It is only used there:
+ * score() and the matrix fills do not go through it.
+ */
+public class VectorScorer implements ScoreKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    public int score(byte[] s1, byte[] s2, ScoringModel scoring) {
+        int m = s1.length;
+        int n = s2.length;
+        if (!scoring.isLinear() || m == 0 || n == 0)
+            return NeedlemanWunsch.SCALAR_KERNEL.score(s1, s2, scoring);
+
+        int gap = scoring.gapExtend();
+        int[] a = new int[m];
+        int[] b = new int[n];                      // seq2 reversed
+        for (int i = 0; i < m; i++) a[i] = s1[i];
+        for (int j = 0; j < n; j++) b[j] = s2[n - 1 - j];
+
+        boolean identity = scoring.isIdentity();
+        int size = scoring.size();
+        int[] flat = null;
+        int[] index = null;
+        if (!identity) {
+            flat = new int[size * size];
+            for (int r = 0; r < size; r++) System.arraycopy(scoring.row(r), 0, flat, r * size, size);
+            index = new int[SPECIES.length()];
+        }
+        IntVector matchV = IntVector.broadcast(SPECIES, scoring.matchScore());
+        IntVector mismatchV = IntVector.broadcast(SPECIES, scoring.mismatchScore());
+
+        // diagonals d-2, d-1 and d, indexed by row i
+        int[] prev2 = new int[m + 1];
+        int[] prev1 = new int[m + 1];
+        int[] cur = new int[m + 1];
+        prev1[0] = gap;            // d = 1: cells (0,1) and (1,0)
+        prev1[1] = gap;            // prev2 holds d = 0, which is just (0,0) = 0
+
+        int lanes = SPECIES.length();
+        for (int d = 2; d <= m + n; d++) {
+            int lo = Math.max(1, d - n);
+            int hi = Math.min(m, d - 1);
+            int offset = n - d;    // b[offset + i] is seq2[d - i - 1]
+
+            int i = lo;
+            for (; i + lanes - 1 <= hi; i += lanes) {
+                IntVector sub;
+                IntVector ra = IntVector.fromArray(SPECIES, a, i - 1);
+                IntVector rb = IntVector.fromArray(SPECIES, b, offset + i);
+                if (identity) {
+                    VectorMask<Integer> same = ra.compare(VectorOperators.EQ, rb);
+                    sub = mismatchV.blend(matchV, same);
+                } else {
+                    ra.mul(size).add(rb).intoArray(index, 0);
+                    sub = IntVector.fromArray(SPECIES, flat, 0, index, 0);
+                }
+                IntVector diag = IntVector.fromArray(SPECIES, prev2, i - 1).add(sub);
+                IntVector up = IntVector.fromArray(SPECIES, prev1, i - 1).add(gap);
+                IntVector left = IntVector.fromArray(SPECIES, prev1, i).add(gap);
+                diag.max(up.max(left)).intoArray(cur, i);
+            }
+            for (; i <= hi; i++) {
+                int sub = scoring.score(a[i - 1], b[offset + i]);
+                int diag = prev2[i - 1] + sub;
+                int up = prev1[i - 1] + gap;
+                int left = prev1[i] + gap;
+                cur[i] = Math.max(diag, Math.max(up, left));
+            }
+
+            // first row and first column cells on this diagonal
+            if (d <= n) cur[0] = d * gap;
+            if (d <= m) cur[d] = d * gap;
+
+            int[] t = prev2;
+            prev2 = prev1;
+            prev1 = cur;
+            cur = t;
+        }
+        return prev1[m];
+    }
+}